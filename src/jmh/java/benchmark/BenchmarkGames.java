@@ -0,0 +1,33 @@
+package benchmark;
+
+import game.*;
+import ghost.*;
+
+public class BenchmarkGames {
+
+    /** Loads a game headless, taking every setting except the map from the config file
+    @return The loaded game
+    @param map The filename of the map to load
+    */
+    public static Game load(String map) {
+        Game game = new Game(null);
+        game.parseJSON();
+        game.filename = map;
+        game.loadGame();
+        return game;
+    }
+
+    /** Finds the first ghost with the given cell ID
+    @return The ghost, or null if the map has no ghost of that type
+    @param game The game to search
+    @param cellID The cell ID of the ghost
+    */
+    public static Ghost findGhost(Game game, char cellID) {
+        for (Ghost ghost : game.ghosts) {
+            if (ghost.getCellID() == cellID) {
+                return ghost;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import game.*;
+import waka.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CollisionBenchmark {
+
+    /** The map to load the waka from
+    */
+    @Param({"map.txt", "map1.txt", "map2.txt", "map3.txt", "map4.txt", "map5.txt"})
+    public String map;
+
+    /** The waka whose collisions are checked
+    */
+    private Waka waka;
+
+    /** Loads the map
+    */
+    @Setup(Level.Trial)
+    public void setup() {
+        this.waka = BenchmarkGames.load(this.map).waka;
+    }
+
+    /** Checks the collision for each of the four moves
+    @param blackhole Consumes the results
+    */
+    @Benchmark
+    public void checkCollision(Blackhole blackhole) {
+        for (int move = 37; move <= 40; move++) {
+            blackhole.consume(this.waka.checkCollision(move));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import game.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GameTickBenchmark {
+
+    /** The map being simulated
+    */
+    @Param({"map.txt", "map1.txt", "map2.txt", "map3.txt", "map4.txt", "map5.txt"})
+    public String map;
+
+    /** Stores the game being simulated
+    */
+    private Game game;
+    /** Stores the simulation being stepped
+    */
+    private Simulation simulation;
+
+    /** Loads the map once, so reading it is never measured
+    */
+    @Setup(Level.Trial)
+    public void setup() {
+        this.game = BenchmarkGames.load(this.map);
+        this.simulation = new Simulation(this.game);
+    }
+
+    /** Restarts the game so every iteration starts from the same state
+    */
+    @Setup(Level.Iteration)
+    public void restart() {
+        this.game.restart();
+    }
+
+    /** Steps the whole game by one tick, restarting it in memory once it is won or lost
+    @return The current tick
+    */
+    @Benchmark
+    public int tick() {
+        if (!this.simulation.step()) {
+            this.game.restart();
+        }
+        return this.simulation.getTick();
+    }
+}
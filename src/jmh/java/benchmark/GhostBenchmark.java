@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import game.*;
+import ghost.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GhostBenchmark {
+
+    /** The cell ID of the ghost type being measured
+    */
+    @Param({"a", "c", "i", "w"})
+    public String ghostType;
+
+    /** Stores the game containing the ghost
+    */
+    private Game game;
+    /** Stores the ghost being measured
+    */
+    private Ghost ghost;
+
+    /** Loads the map containing every ghost type
+    */
+    @Setup(Level.Trial)
+    public void setup() {
+        this.game = BenchmarkGames.load("map.txt");
+        this.ghost = BenchmarkGames.findGhost(this.game, this.ghostType.charAt(0));
+    }
+
+    /** Ranks the moves towards the waka
+    @return The ranked moves
+    */
+    @Benchmark
+    public Object getBestMove() {
+        return this.ghost.getBestMove(this.game.waka.getX(), this.game.waka.getY());
+    }
+
+    /** Finds the target while chasing
+    @return The target coordinates
+    */
+    @Benchmark
+    public int[] targetMoveChase() {
+        return this.ghost.targetMove(this.game.world, false);
+    }
+
+    /** Finds the target while scattering
+    @return The target coordinates
+    */
+    @Benchmark
+    public int[] targetMoveScatter() {
+        return this.ghost.targetMove(this.game.world, true);
+    }
+}
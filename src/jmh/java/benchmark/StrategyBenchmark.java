@@ -0,0 +1,47 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import game.*;
+import ghost.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StrategyBenchmark {
+
+    /** The name of the ghost strategy being measured
+    */
+    @Param({"ambusher", "chaser", "ignorant", "whim"})
+    public String strategy;
+
+    /** Stores the snapshot the strategy targets from
+    */
+    private WorldSnapshot world;
+    /** Stores the strategy being measured, found through the service loader
+    */
+    private GhostStrategy ghostStrategy;
+    /** Stores the target the strategy writes into
+    */
+    private int[] target;
+
+    /** Captures a snapshot of the map containing every ghost type
+    */
+    @Setup(Level.Trial)
+    public void setup() {
+        this.world = BenchmarkGames.load("map.txt").world;
+        this.ghostStrategy = GhostStrategies.get(this.strategy);
+        this.target = new int[2];
+    }
+
+    /** Finds the target while chasing, without a ghost or game in the way
+    @return The target coordinates
+    */
+    @Benchmark
+    public int[] targetChase() {
+        this.ghostStrategy.target(this.world, 208, 272, false, this.target);
+        return this.target;
+    }
+}
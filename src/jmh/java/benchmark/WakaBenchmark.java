@@ -0,0 +1,41 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import game.*;
+import waka.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WakaBenchmark {
+
+    /** The map the waka moves through
+    */
+    @Param({"map.txt", "map1.txt", "map2.txt", "map3.txt", "map4.txt", "map5.txt"})
+    public String map;
+
+    /** Stores the waka being ticked
+    */
+    private Waka waka;
+
+    /** Reloads the map so every iteration starts from the same state
+    */
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.waka = BenchmarkGames.load(this.map).waka;
+    }
+
+    /** Ticks the waka, turning it whenever it runs into a wall so it keeps moving
+    */
+    @Benchmark
+    public void tick() {
+        int lastMove = this.waka.getLastMove();
+        if (this.waka.checkCollision(lastMove)) {
+            this.waka.setLastMove(lastMove == 40 ? 37 : lastMove + 1);
+        }
+        this.waka.tick();
+    }
+}
@@ -4,10 +4,12 @@ import processing.core.PApplet;
 import processing.core.PImage;
 import processing.core.PFont;
 import java.util.ArrayList;
+import java.io.IOException;
 
 import waka.*;
 import game.*;
 import ghost.*;
+import server.*;
 
 public class App extends PApplet {
     /** The width of game the window
@@ -16,15 +18,43 @@ public class App extends PApplet {
     /** The height of game the window
     */
     public static final int HEIGHT = 576;
+    /** How long the win or lose screen is shown before the game restarts, in milliseconds
+    */
+    public static final int END_SCREEN_LENGTH = 10000;
+    /** The key code of the enter key, which skips the win or lose screen
+    */
+    public static final int ENTER = 10;
+    /** The frame rate the app asks Processing for
+    */
+    public static final int TARGET_FRAME_RATE = 60;
     /** The instance of the game, containing the game matrix and attributes for the state
     */
     public Game game;
-    /** Stores the time to calculate when to change to scatter
+    /** Steps the game state with a fixed timestep, independent of the frame rate
+    */
+    public Simulation simulation;
+    /** Stores the time of the last frame, used to advance the simulation
+    */
+    public long lastFrameNanos;
+    /** Stores the time in milliseconds at which the win or lose screen was first shown, or -1 while playing.
+    Volatile as enter sets it from the input thread.
+    */
+    public volatile int endScreenStart;
+    /** Stores the number of games started, used to name the recording of each game
+    */
+    public int round;
+    /** Stores whether the game is currently in debug mode, toggled from the input thread
+    */
+    public volatile boolean debug;
+    /** Stores the watcher reloading the config file between rounds, or null if it is not being watched
+    */
+    public ConfigWatcher configWatcher;
+    /** Stores the timings of each phase of the game, shown in debug mode
     */
-    public int time;
-    /** Stores whether the game is currently in debug mode
+    public Metrics metrics;
+    /** Stores the connection to the game server when playing on one, otherwise null
     */
-    public boolean debug;
+    public GameClient client;
     /** Stores the font needed to draw the win and lose screen
     */
     public PFont font;
@@ -32,17 +62,25 @@ public class App extends PApplet {
     /** Constructs new App object
     */
     public App() {
-        this.time = 0;
         this.debug = false;
+        this.endScreenStart = -1;
         this.game = new Game(this);
+        this.simulation = new Simulation(this.game);
     }
 
     /** Sets up the game instance and the necessary fonts
     */
     public void setup() {
-        frameRate(60);
-        this.game.parseJSON(this);
-        this.game.loadGame(this);
+        frameRate(TARGET_FRAME_RATE);
+        startMetrics();
+        if (!connect()) {
+            this.game.parseJSON();
+            this.game.loadGame();
+            watchConfig();
+            this.game.setSeed(System.nanoTime());
+            startRecording();
+        }
+        this.lastFrameNanos = System.nanoTime();
         this.font = this.createFont("src/main/resources/PressStart2P-Regular.ttf", 16f);
         textFont(this.font);
     }
@@ -53,15 +91,6 @@ public class App extends PApplet {
         size(WIDTH, HEIGHT);
     }
 
-    /** Ticks through the entities in the game
-    */
-    public void tickEntities() {
-        for(Ghost ghost : this.game.ghosts) {
-            ghost.tick(this);
-        }
-        this.game.waka.tick(this);
-    }
-
     /** Draws the entities in the game to the screen
     */
     public void drawEntities() {
@@ -74,60 +103,240 @@ public class App extends PApplet {
     /** Draws all the game objects to the screen
     */
     public void draw() {
+        this.metrics.frame();
         background(0, 0, 0);
-        // Resets the game state
-        if (this.game.resetGame) {
-            resetGame();
-        }
 
-        // Ticks through the entities
-        tickEntities();
+        if (this.client != null) {
+            // The server runs the game, so only its changes are applied
+            updateClient();
+        } else {
+            // Advances the simulation by the time elapsed since the last frame
+            long now = System.nanoTime();
+            this.simulation.advance(now - this.lastFrameNanos);
+            this.lastFrameNanos = now;
+        }
 
-        // Checks for whether there is a win or lose condition
-        if (this.game.checkWinOrLose(this)) {
-            this.game.resetGame = true;
-            return;
+        // Shows the win or lose screen once the game is over, restarting once it has been shown long enough
+        if (this.game.resetGame) {
+            if (this.endScreenStart == -1) {
+                this.endScreenStart = millis();
+                finishRecording();
+            }
+            if (this.client == null && millis() - this.endScreenStart >= END_SCREEN_LENGTH) {
+                resetGame();
+            } else {
+                if (this.game.isWon()) {
+                    this.game.drawWin(this);
+                } else {
+                    this.game.drawLose(this);
+                }
+                return;
+            }
         }
 
         // Draws the game grid and the entities
+        GameEvents.FrameRender event = new GameEvents.FrameRender();
+        event.begin();
+        long start = this.metrics.start();
         this.game.draw();
 
         // Draws the ghost and waka entities to the screen
         drawEntities();
+        this.metrics.record(Metrics.RENDER, start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.map = this.game.filename;
+            event.mode = this.game.getModeName();
+            event.tick = this.game.tick;
+            event.debug = this.debug;
+            event.commit();
+        }
 
-        // Increments the time
-        this.time += 1;
+        // Shows the timings alongside the ghost target lines in debug mode
+        if (this.debug) {
+            this.metrics.draw(this);
+        }
     }
 
     /** Checks for what the last key press was
     */
     public void keyPressed() {
-        Waka waka = this.game.waka;
         // Starts debug mode if the key press was spacebar
         if (keyCode == 32) {
             this.debug = !this.debug;
-        } else if (waka.checkCollision(keyCode, this)) {
-            // If the move causes collision, queue it as the next move instead
-            waka.nextMove = keyCode;
-        } else if (keyCode >= 37 && keyCode <= 40) {
-            // If the move doesn't cause collision, store is as the last lastMove
-            // Reset the next move
-            waka.lastMove = keyCode;
-            waka.nextMove = 0;
+        } else if (this.client != null) {
+            // Sends the key press to the server, which steers the waka on its next tick
+            this.client.sendKey(keyCode);
+        } else if (this.game.resetGame) {
+            // Skips the rest of the win or lose screen if enter is pressed
+            if (keyCode == ENTER) {
+                this.endScreenStart = millis() - END_SCREEN_LENGTH;
+            }
+        } else {
+            // Queues the key press for the next tick rather than touching the game from the event thread
+            this.game.inputQueue.offer(keyCode, System.nanoTime());
         }
     }
 
-    /** Resets the game state after 10 seconds
+    /** Restarts the game once the win or lose screen has been shown.
+    The game is restored from its loaded map and settings, so no files are read again.
     */
     public void resetGame() {
-        // Pause the game for 10 seconds
-        this.delay(10000);
-        // Reset the time and states
-        this.time = 0;
+        GameEvents.ResetGame event = new GameEvents.ResetGame();
+        event.begin();
+        boolean won = this.game.isWon();
+        int ticks = this.game.tick;
+        // Reset the states
         this.debug = false;
-        // Create a new game instance
-        this.game = new Game(this);
-        setup();
+        this.endScreenStart = -1;
+        // Pick up any changes to the config file since the last round
+        if (this.configWatcher != null && this.configWatcher.getConfig() != this.game.config) {
+            applyConfig(this.configWatcher.getConfig());
+        }
+        // Restore the game to its starting state with a new seed
+        this.game.seed = System.nanoTime();
+        this.game.restart();
+        startRecording();
+        this.simulation = new Simulation(this.game);
+        this.lastFrameNanos = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.map = this.game.filename;
+            event.won = won;
+            event.ticks = ticks;
+            event.commit();
+        }
+    }
+
+    /** Connects to a game server if the waka.connect property names one as host:port.
+    The waka.session property joins an existing session rather than starting a new one.
+    @return True if the game is being played on a server
+    */
+    public boolean connect() {
+        String server = System.getProperty("waka.connect");
+        if (server == null) {
+            return false;
+        }
+        int separator = server.lastIndexOf(':');
+        String host = separator == -1 ? server : server.substring(0, separator);
+        int port = separator == -1 ? Protocol.DEFAULT_PORT : Integer.parseInt(server.substring(separator + 1));
+        GameClient client = new GameClient(this);
+        try {
+            client.connect(host, port, Integer.getInteger("waka.session", Protocol.NEW_SESSION));
+            this.game = client.awaitGame(10000);
+        } catch (IOException ioe) {
+            // Play locally instead
+            ioe.printStackTrace();
+            return false;
+        }
+        this.game.metrics = this.metrics;
+        this.client = client;
+        return true;
+    }
+
+    /** Applies the changes the server has sent since the last frame, switching to the new game when a round starts
+    */
+    public void updateClient() {
+        try {
+            Game next = this.client.update();
+            if (next != this.game) {
+                next.metrics = this.metrics;
+                this.game = next;
+                this.endScreenStart = -1;
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            exit();
+        }
+    }
+
+    /** Starts timing the game, exporting snapshots to a file if the waka.metrics property names one.
+    The waka.metricsInterval property sets how often snapshots are exported, in seconds.
+    */
+    public void startMetrics() {
+        this.metrics = new Metrics(TARGET_FRAME_RATE);
+        this.game.metrics = this.metrics;
+        String path = System.getProperty("waka.metrics");
+        if (path == null) {
+            return;
+        }
+        long interval = Long.getLong("waka.metricsInterval", Metrics.DEFAULT_EXPORT_INTERVAL / 1000000000L);
+        try {
+            this.metrics.exportTo(path, interval * 1000000000L);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /** Starts watching the config file if the waka.watchConfig property is true.
+    Changes are picked up between rounds, so a game in progress keeps the settings it started with.
+    */
+    public void watchConfig() {
+        if (!Boolean.getBoolean("waka.watchConfig") || this.game.config == null) {
+            return;
+        }
+        try {
+            this.configWatcher = new ConfigWatcher(GameConfig.DEFAULT_PATH, this.game.config);
+            this.configWatcher.start();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /** Applies a reloaded config to the game, loading a new game if the config names a different map or ghosts
+    @param config The config to apply
+    */
+    public void applyConfig(GameConfig config) {
+        if (config.sameMap(this.game.config) && config.sameGhosts(this.game.config)) {
+            this.game.applyConfig(config);
+            return;
+        }
+        Game next = new Game(this);
+        next.metrics = this.metrics;
+        next.applyConfig(config);
+        if (next.loadGame() == null || next.waka == null) {
+            // Keep playing the old map, the new one is tried again next round
+            System.err.println("Could not load map " + config.getMap() + ", keeping " + this.game.filename);
+            return;
+        }
+        this.game = next;
+    }
+
+    /** Starts recording the key presses of the game if the waka.record property names a file.
+    Each game is written to its own file, suffixed with the round number.
+    */
+    public void startRecording() {
+        String path = System.getProperty("waka.record");
+        if (path == null) {
+            return;
+        }
+        this.round += 1;
+        try {
+            this.game.recorder = InputRecorder.start(path + "." + this.round, this.game);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /** Ends the recording of the game, if it is being recorded
+    */
+    public void finishRecording() {
+        if (this.game.recorder == null) {
+            return;
+        }
+        try {
+            this.game.recorder.finish(this.game);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        this.game.recorder = null;
+    }
+
+    /** Ends the recording when the window is closed part way through a game, so the recording can still be verified
+    */
+    public void dispose() {
+        finishRecording();
+        super.dispose();
     }
 
     public static void main(String[] args) {
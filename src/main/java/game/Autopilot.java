@@ -0,0 +1,46 @@
+package game;
+
+import waka.*;
+
+public class Autopilot {
+
+    /** Stores the random number generator used to pick turns
+    */
+    private final GameRandom random;
+    /** Stores the open moves found on the current tile, reused every tick
+    */
+    private final int[] openMoves;
+
+    /** Constructs a new autopilot
+    @param seed The seed used to pick turns
+    */
+    public Autopilot(long seed) {
+        this.random = new GameRandom(seed);
+        this.openMoves = new int[4];
+    }
+
+    /** Steers the waka, picking a random open direction whenever it lines up with a tile.
+    The waka only turns back on itself when it reaches a dead end.
+    Turns go through the game's input handling, so they are recorded like key presses.
+    @param game The game whose waka is steered
+    */
+    public void steer(Game game) {
+        Waka waka = game.waka;
+        if (waka.getX() % Board.TILE_SIZE != 0 || waka.getY() % Board.TILE_SIZE != 0) {
+            return;
+        }
+        int lastMove = waka.getLastMove();
+        int reverse = lastMove == 37 || lastMove == 38 ? lastMove + 2 : lastMove - 2;
+        int count = 0;
+        for (int move = 37; move <= 40; move++) {
+            if (move != reverse && !waka.checkCollision(move)) {
+                this.openMoves[count++] = move;
+            }
+        }
+        if (count == 0) {
+            game.handleInput(reverse);
+        } else {
+            game.handleInput(this.openMoves[this.random.nextInt(count)]);
+        }
+    }
+}
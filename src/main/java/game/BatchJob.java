@@ -0,0 +1,25 @@
+package game;
+
+public class BatchJob {
+
+    /** Stores the settings of the game, including its map
+    */
+    public final GameConfig config;
+    /** Stores the seed used to drive the game
+    */
+    public final long seed;
+    /** Stores the most ticks the game is run for before it is given up on
+    */
+    public final int maxTicks;
+
+    /** Constructs a new batch job
+    @param config The settings of the game, including its map
+    @param seed The seed used to drive the game
+    @param maxTicks The most ticks the game is run for
+    */
+    public BatchJob(GameConfig config, long seed, int maxTicks) {
+        this.config = config;
+        this.seed = seed;
+        this.maxTicks = maxTicks;
+    }
+}
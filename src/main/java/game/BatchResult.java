@@ -0,0 +1,35 @@
+package game;
+
+public class BatchResult {
+
+    /** Stores the job that was run
+    */
+    public final BatchJob job;
+    /** Stores whether every fruit was eaten
+    */
+    public final boolean won;
+    /** Stores whether the game ended before running out of ticks
+    */
+    public final boolean finished;
+    /** Stores the number of ticks the game ran for
+    */
+    public final int ticks;
+    /** Stores the number of lives lost during the game
+    */
+    public final int livesLost;
+
+    /** Constructs the result of a single game
+    @param job The job that was run
+    @param won Whether every fruit was eaten
+    @param finished Whether the game ended before running out of ticks
+    @param ticks The number of ticks the game ran for
+    @param livesLost The number of lives lost during the game
+    */
+    public BatchResult(BatchJob job, boolean won, boolean finished, int ticks, int livesLost) {
+        this.job = job;
+        this.won = won;
+        this.finished = finished;
+        this.ticks = ticks;
+        this.livesLost = livesLost;
+    }
+}
@@ -0,0 +1,126 @@
+package game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class BatchRunner {
+
+    /** Stores the pool the games are run on
+    */
+    private final ForkJoinPool pool;
+    /** Stores the board of every map read so far, shared read only between games
+    */
+    private final ConcurrentHashMap<String, Board> maps;
+
+    /** Constructs a batch runner using one thread per available core
+    */
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Constructs a batch runner with the given number of threads
+    @param parallelism The number of games run at once
+    */
+    public BatchRunner(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.maps = new ConcurrentHashMap<String, Board>();
+    }
+
+    /** Runs every job headless in parallel and aggregates the results
+    @return The statistics of the batch
+    @param jobs The games to run
+    @throws IOException If one of the maps could not be read
+    */
+    public BatchStats run(List<BatchJob> jobs) throws IOException {
+        // Read each map once up front, so the games only ever copy the boards
+        for (BatchJob job : jobs) {
+            String map = job.config.getMap();
+            if (!this.maps.containsKey(map)) {
+                this.maps.put(map, Game.readBoard(map, job.config.getCellIDs()));
+            }
+        }
+        List<Callable<BatchResult>> tasks = new ArrayList<Callable<BatchResult>>();
+        for (final BatchJob job : jobs) {
+            tasks.add(new Callable<BatchResult>() {
+                public BatchResult call() {
+                    return runJob(job);
+                }
+            });
+        }
+        List<BatchResult> results = new ArrayList<BatchResult>();
+        try {
+            for (Future<BatchResult> future : this.pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", ie);
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException("Game failed", ee.getCause());
+        }
+        return new BatchStats(results);
+    }
+
+    /** Runs a single game to completion on the calling thread.
+    Every game has its own Game, Simulation and Autopilot, so no state is shared between games.
+    @return The result of the game
+    @param job The game to run
+    */
+    public BatchResult runJob(BatchJob job) {
+        Game game = createGame(job, getBoard(job.config));
+        Simulation simulation = new Simulation(game);
+        // The batch already runs a game on every thread of the pool
+        simulation.setParallelism(null, Integer.MAX_VALUE);
+        Autopilot autopilot = new Autopilot(job.seed);
+        int ticks = 0;
+        while (ticks < job.maxTicks && !game.resetGame) {
+            autopilot.steer(game);
+            simulation.step();
+            ticks += 1;
+        }
+        return new BatchResult(job, game.isWon(), game.resetGame, game.tick, game.startingLives - game.lives);
+    }
+
+    /** Gets the board of a map, reading it the first time it is used
+    @return The shared board, which must only be copied
+    @param config The config naming the map and the cell IDs it may contain
+    */
+    private Board getBoard(GameConfig config) {
+        String map = config.getMap();
+        Board board = this.maps.get(map);
+        if (board == null) {
+            try {
+                board = Game.readBoard(map, config.getCellIDs());
+            } catch (IOException ioe) {
+                throw new IllegalArgumentException("Map could not be read: " + map, ioe);
+            }
+            this.maps.put(map, board);
+        }
+        return board;
+    }
+
+    /** Creates a headless game with the settings of the job
+    @return The loaded game
+    @param job The game to create
+    @param board The board of the job's map, which is copied rather than changed
+    */
+    public static Game createGame(BatchJob job, Board board) {
+        Game game = new Game(null);
+        game.setSeed(job.seed);
+        game.applyConfig(job.config);
+        game.loadBoard(board.copy());
+        return game;
+    }
+
+    /** Stops the threads of the pool once the running games have finished
+    */
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+}
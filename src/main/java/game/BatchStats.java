@@ -0,0 +1,87 @@
+package game;
+
+import java.util.List;
+
+public class BatchStats {
+
+    /** Stores the result of every game, in the order the jobs were given
+    */
+    public final List<BatchResult> results;
+    /** Stores the number of games run
+    */
+    public final int games;
+    /** Stores the number of games won
+    */
+    public final int wins;
+    /** Stores the number of games that ended before running out of ticks
+    */
+    public final int finished;
+    /** Stores the total number of ticks simulated across every game
+    */
+    public final long totalTicks;
+    /** Stores the total number of ticks taken by the games that ended
+    */
+    public final long finishedTicks;
+    /** Stores the total number of lives lost across every game
+    */
+    public final long livesLost;
+
+    /** Aggregates the results of a batch of games
+    @param results The result of every game
+    */
+    public BatchStats(List<BatchResult> results) {
+        this.results = results;
+        int wins = 0;
+        int finished = 0;
+        long totalTicks = 0;
+        long finishedTicks = 0;
+        long livesLost = 0;
+        for (BatchResult result : results) {
+            if (result.won) {
+                wins += 1;
+            }
+            if (result.finished) {
+                finished += 1;
+                finishedTicks += result.ticks;
+            }
+            totalTicks += result.ticks;
+            livesLost += result.livesLost;
+        }
+        this.games = results.size();
+        this.wins = wins;
+        this.finished = finished;
+        this.totalTicks = totalTicks;
+        this.finishedTicks = finishedTicks;
+        this.livesLost = livesLost;
+    }
+
+    /** Gets the fraction of games won
+    @return The win rate, between 0 and 1
+    */
+    public double getWinRate() {
+        return this.games == 0 ? 0 : (double) this.wins / this.games;
+    }
+
+    /** Gets the average number of ticks taken by the games that ended
+    @return The average ticks to completion
+    */
+    public double getAverageTicksToCompletion() {
+        return this.finished == 0 ? 0 : (double) this.finishedTicks / this.finished;
+    }
+
+    /** Gets the average number of lives lost per game
+    @return The average lives lost
+    */
+    public double getAverageLivesLost() {
+        return this.games == 0 ? 0 : (double) this.livesLost / this.games;
+    }
+
+    /** Converts the aggregate statistics to a String
+    @return A string containing the win rate, ticks to completion and lives lost
+    */
+    public String toString() {
+        return "Games: " + this.games + ", Win rate: " + getWinRate()
+            + ", Ticks to completion: " + getAverageTicksToCompletion()
+            + ", Lives lost: " + getAverageLivesLost();
+    }
+}
@@ -0,0 +1,263 @@
+package game;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import processing.core.PImage;
+
+public class Board {
+
+    /** The cell ID of an empty tile
+    */
+    public static final char EMPTY = '0';
+    /** The cell ID of a fruit
+    */
+    public static final char FRUIT = '7';
+    /** The cell ID of a superfruit
+    */
+    public static final char SUPER_FRUIT = '8';
+    /** The cell ID of a soda can
+    */
+    public static final char SODA_CAN = 's';
+    /** The size of a tile in pixels
+    */
+    public static final int TILE_SIZE = 16;
+
+    /** Stores the number of columns, which is also the stride between rows
+    */
+    protected final int width;
+    /** Stores the number of rows
+    */
+    protected final int height;
+    /** Stores the cell ID of every tile, indexed by row * width + column
+    */
+    protected final byte[] tiles;
+    /** Stores a bit for every tile that is a wall, indexed by row * width + column
+    */
+    protected final long[] walls;
+    /** Stores the read only GameObject view of the board, created on first use
+    */
+    private List<List<GameObject>> view;
+
+    /** Constructs a board of empty tiles
+    @param width The number of columns
+    @param height The number of rows
+    */
+    public Board(int width, int height) {
+        this(width, height, new byte[width * height]);
+        for (int i = 0; i < this.tiles.length; i++) {
+            this.tiles[i] = (byte) EMPTY;
+        }
+    }
+
+    /** Constructs a board over the given tiles, building the wall index from them
+    @param width The number of columns
+    @param height The number of rows
+    @param tiles The cell ID of every tile, indexed by row * width + column
+    */
+    public Board(int width, int height, byte[] tiles) {
+        if (width < 0 || height < 0 || (long) width * height != tiles.length) {
+            throw new IllegalArgumentException("Board of " + width + "x" + height + " does not match " + tiles.length + " tiles");
+        }
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.walls = new long[(tiles.length + 63) >>> 6];
+        for (int i = 0; i < tiles.length; i++) {
+            if (isWallID((char) tiles[i])) {
+                this.walls[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    /** Constructs a board over the given tiles and a wall index that was computed ahead of time
+    @param width The number of columns
+    @param height The number of rows
+    @param tiles The cell ID of every tile, indexed by row * width + column
+    @param walls A bit for every tile that is a wall, indexed by row * width + column
+    */
+    public Board(int width, int height, byte[] tiles, long[] walls) {
+        if (width < 0 || height < 0 || (long) width * height != tiles.length || walls.length != (tiles.length + 63) >>> 6) {
+            throw new IllegalArgumentException("Board of " + width + "x" + height + " does not match " + tiles.length + " tiles");
+        }
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.walls = walls;
+    }
+
+    /** Checks whether the given cell ID is a wall
+    @return True if the cell ID is one of the wall pieces
+    @param cellID The cell ID to check
+    */
+    public static boolean isWallID(char cellID) {
+        return cellID >= '1' && cellID <= '6';
+    }
+
+    /** Gets the index of a tile in the flat tile array
+    @return The tile index
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public int index(int col, int row) {
+        return row * this.width + col;
+    }
+
+    /** Checks whether the given tile lies on the board
+    @return True if the tile is on the board
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean inBounds(int col, int row) {
+        return col >= 0 && col < this.width && row >= 0 && row < this.height;
+    }
+
+    /** Gets the cell ID of a tile
+    @return The cell ID, or an empty tile if it lies outside the board
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public char getCellID(int col, int row) {
+        if (!inBounds(col, row)) {
+            return EMPTY;
+        }
+        return (char) this.tiles[index(col, row)];
+    }
+
+    /** Sets the cell ID of a tile, keeping the wall index up to date
+    @param col The column of the tile
+    @param row The row of the tile
+    @param cellID The new cell ID
+    */
+    public void setCellID(int col, int row, char cellID) {
+        int i = index(col, row);
+        this.tiles[i] = (byte) cellID;
+        if (isWallID(cellID)) {
+            this.walls[i >>> 6] |= 1L << i;
+        } else {
+            this.walls[i >>> 6] &= ~(1L << i);
+        }
+    }
+
+    /** Checks whether a tile is a wall
+    @return True if the tile is a wall, false if it is open or outside the board
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isWall(int col, int row) {
+        if (!inBounds(col, row)) {
+            return false;
+        }
+        int i = index(col, row);
+        return (this.walls[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Checks whether a tile holds a fruit
+    @return True if the tile is a fruit
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isFruit(int col, int row) {
+        return getCellID(col, row) == FRUIT;
+    }
+
+    /** Checks whether a tile holds a superfruit
+    @return True if the tile is a superfruit
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isSuperFruit(int col, int row) {
+        return getCellID(col, row) == SUPER_FRUIT;
+    }
+
+    /** Checks whether a tile holds a soda can
+    @return True if the tile is a soda can
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isSodaCan(int col, int row) {
+        return getCellID(col, row) == SODA_CAN;
+    }
+
+    /** Gets the number of columns
+    @return The number of columns
+    */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /** Gets the number of rows
+    @return The number of rows
+    */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /** Overwrites every tile with the tiles of another board of the same size
+    @param other The board to copy from
+    */
+    public void copyFrom(Board other) {
+        if (other.width != this.width || other.height != this.height) {
+            throw new IllegalArgumentException("Board of " + other.width + "x" + other.height + " does not match " + this.width + "x" + this.height);
+        }
+        System.arraycopy(other.tiles, 0, this.tiles, 0, this.tiles.length);
+        System.arraycopy(other.walls, 0, this.walls, 0, this.walls.length);
+    }
+
+    /** Creates an independent copy of the board
+    @return The copy
+    */
+    public Board copy() {
+        return new Board(this.width, this.height, this.tiles.clone(), this.walls.clone());
+    }
+
+    /** Creates a game object describing a single tile.
+    The object is a snapshot, changing it does not change the board.
+    @return The game object for the tile
+    @param col The column of the tile
+    @param row The row of the tile
+    @param sprite The sprite to give the object
+    */
+    public GameObject getObject(int col, int row, PImage sprite) {
+        char cellID = getCellID(col, row);
+        Cell cell = new Cell(col * TILE_SIZE, row * TILE_SIZE, cellID, sprite);
+        cell.isFruit = cellID == FRUIT;
+        cell.isSuperFruit = cellID == SUPER_FRUIT;
+        cell.isSodaCan = cellID == SODA_CAN;
+        return cell;
+    }
+
+    /** Gets a read only view of the board as rows of game objects, for code written against the old grid.
+    Objects are created as they are read, so the view always reflects the current tiles.
+    @return The rows of game objects
+    @param game The game used to look up each tile's sprite
+    */
+    public List<List<GameObject>> asGameObjects(final Game game) {
+        if (this.view == null) {
+            this.view = new AbstractList<List<GameObject>>() {
+                public List<GameObject> get(final int row) {
+                    if (row < 0 || row >= height) {
+                        throw new IndexOutOfBoundsException("Row " + row);
+                    }
+                    return new AbstractList<GameObject>() {
+                        public GameObject get(int col) {
+                            if (col < 0 || col >= width) {
+                                throw new IndexOutOfBoundsException("Column " + col);
+                            }
+                            return getObject(col, row, game.getCellSprite(getCellID(col, row)));
+                        }
+
+                        public int size() {
+                            return width;
+                        }
+                    };
+                }
+
+                public int size() {
+                    return height;
+                }
+            };
+        }
+        return this.view;
+    }
+}
@@ -0,0 +1,297 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class CompiledMap {
+
+    /** The file extension of compiled maps
+    */
+    public static final String EXTENSION = ".wmap";
+    /** The magic number at the start of every compiled map, "WMAP"
+    */
+    public static final int MAGIC = 0x574D4150;
+    /** The version of the compiled map format
+    */
+    public static final int VERSION = 1;
+    /** The size of the header in bytes
+    */
+    public static final int HEADER_SIZE = 32;
+    /** The size of each entry in the spawn table in bytes
+    */
+    public static final int SPAWN_SIZE = 9;
+    /** The scatter corners whose distance fields are compiled into the map, as pixel coordinates
+    */
+    public static final int[][] SCATTER_CORNERS = {{0, 0}, {448, 0}, {0, 576}, {448, 576}};
+
+    /** Stores the tiles of the map
+    */
+    public final Board board;
+    /** Stores the cell ID of every entity spawn, in row major order
+    */
+    public final char[] spawnIDs;
+    /** Stores the column of every entity spawn
+    */
+    public final int[] spawnCols;
+    /** Stores the row of every entity spawn
+    */
+    public final int[] spawnRows;
+    /** Stores the number of fruit on the map
+    */
+    public final int fruits;
+    /** Stores the navigation data of the map, or null if it was not compiled in
+    */
+    public final Navigation navigation;
+
+    /** Constructs a compiled map
+    @param board The tiles of the map
+    @param spawnIDs The cell ID of every entity spawn
+    @param spawnCols The column of every entity spawn
+    @param spawnRows The row of every entity spawn
+    @param fruits The number of fruit on the map
+    @param navigation The navigation data of the map, or null
+    */
+    public CompiledMap(Board board, char[] spawnIDs, int[] spawnCols, int[] spawnRows, int fruits, Navigation navigation) {
+        this.board = board;
+        this.spawnIDs = spawnIDs;
+        this.spawnCols = spawnCols;
+        this.spawnRows = spawnRows;
+        this.fruits = fruits;
+        this.navigation = navigation;
+    }
+
+    /** Compiles a board, finding its entity spawns and counting its fruit
+    @return The compiled map
+    @param board The board to compile
+    @param withNavigation Whether to compute the distance field towards each scatter corner, ignored for maps too large for navigation data
+    */
+    public static CompiledMap compile(Board board, boolean withNavigation) {
+        int count = 0;
+        int fruits = 0;
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int col = 0; col < board.getWidth(); col++) {
+                char cellID = board.getCellID(col, row);
+                if (!Game.isMazeCell(cellID)) {
+                    count += 1;
+                } else if (cellID == Board.FRUIT) {
+                    fruits += 1;
+                }
+            }
+        }
+        char[] spawnIDs = new char[count];
+        int[] spawnCols = new int[count];
+        int[] spawnRows = new int[count];
+        int spawn = 0;
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int col = 0; col < board.getWidth(); col++) {
+                char cellID = board.getCellID(col, row);
+                if (!Game.isMazeCell(cellID)) {
+                    spawnIDs[spawn] = cellID;
+                    spawnCols[spawn] = col;
+                    spawnRows[spawn] = row;
+                    spawn += 1;
+                }
+            }
+        }
+        Navigation navigation = null;
+        if (withNavigation && Navigation.isSupported(board.getWidth(), board.getHeight())) {
+            navigation = new Navigation(board);
+            for (int[] corner : SCATTER_CORNERS) {
+                navigation.pin(corner[0], corner[1]);
+            }
+        }
+        return new CompiledMap(board, spawnIDs, spawnCols, spawnRows, fruits, navigation);
+    }
+
+    /** Writes the compiled map to a file.
+    The header holds the sizes of each section and a CRC32 of the whole file, taken with the checksum itself as zero.
+    The payload is the spawn table, the tiles, the wall index and then any navigation fields.
+    @param filename The path of the file to write
+    @throws IOException If the file could not be written
+    */
+    public void write(String filename) throws IOException {
+        int tiles = this.board.tiles.length;
+        int navFields = this.navigation == null ? 0 : this.navigation.pinnedTiles.length;
+        long size = (long) HEADER_SIZE + (long) SPAWN_SIZE * this.spawnIDs.length + tiles
+            + 8L * this.board.walls.length + (long) navFields * (4 + 2L * tiles);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Map of " + this.board.width + "x" + this.board.height + " is too large to compile");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+        // Header, with the checksum filled in at the end
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(this.board.width);
+        buffer.putInt(this.board.height);
+        buffer.putInt(this.fruits);
+        buffer.putInt(this.spawnIDs.length);
+        buffer.putInt(navFields);
+        buffer.putInt(0);
+
+        // Spawn table
+        for (int i = 0; i < this.spawnIDs.length; i++) {
+            buffer.put((byte) this.spawnIDs[i]);
+            buffer.putInt(this.spawnCols[i]);
+            buffer.putInt(this.spawnRows[i]);
+        }
+        // Tiles and wall index
+        buffer.put(this.board.tiles);
+        buffer.asLongBuffer().put(this.board.walls);
+        buffer.position(buffer.position() + 8 * this.board.walls.length);
+        // Navigation fields
+        for (int i = 0; i < navFields; i++) {
+            buffer.putInt(this.navigation.pinnedTiles[i]);
+            buffer.asShortBuffer().put(this.navigation.pinnedFields[i]);
+            buffer.position(buffer.position() + 2 * tiles);
+        }
+
+        // The checksum field is still zero here
+        CRC32 crc = new CRC32();
+        buffer.position(0);
+        crc.update(buffer);
+        buffer.putInt(HEADER_SIZE - 4, (int) crc.getValue());
+
+        buffer.position(0);
+        FileChannel channel = FileChannel.open(Paths.get(filename),
+            StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Reads a compiled map from a file.
+    The file is memory mapped and each section is bulk copied into its array, with no per tile decoding.
+    @return The compiled map
+    @param filename The path of the compiled map
+    @throws MapFormatException If the file is not a valid compiled map or fails its checksum
+    @throws IOException If the file could not be read
+    */
+    public static CompiledMap read(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new MapFormatException(filename, 1, 1, "Not a compiled map");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return read(filename, buffer);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Reads a compiled map from a buffer holding the whole file
+    @return The compiled map
+    @param filename The path of the compiled map, used in error messages
+    @param buffer The contents of the file
+    @throws MapFormatException If the buffer is not a valid compiled map or fails its checksum
+    */
+    public static CompiledMap read(String filename, ByteBuffer buffer) throws MapFormatException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new MapFormatException(filename, 1, 1, "Not a compiled map");
+        }
+        int version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new MapFormatException(filename, 1, 5, "Unsupported compiled map version " + version);
+        }
+        int width = buffer.getInt(8);
+        int height = buffer.getInt(12);
+        int fruits = buffer.getInt(16);
+        int spawns = buffer.getInt(20);
+        int navFields = buffer.getInt(24);
+        int checksum = buffer.getInt(28);
+
+        long tiles = (long) width * height;
+        long expected = (long) HEADER_SIZE + (long) SPAWN_SIZE * spawns + tiles
+            + 8L * ((tiles + 63) >>> 6) + (long) navFields * (4 + 2L * tiles);
+        if (width < 0 || height < 0 || spawns < 0 || navFields < 0 || expected != buffer.limit()) {
+            throw new MapFormatException(filename, 1, 9, "Compiled map sizes do not match the file length");
+        }
+        // Checks the header too, reading the checksum field as zero like it was when written
+        CRC32 crc = new CRC32();
+        ByteBuffer header = buffer.duplicate();
+        header.position(0);
+        header.limit(HEADER_SIZE - 4);
+        crc.update(header);
+        crc.update(new byte[4]);
+        buffer.position(HEADER_SIZE);
+        crc.update(buffer);
+        if ((int) crc.getValue() != checksum) {
+            throw new MapFormatException(filename, 1, 29, "Compiled map failed its checksum");
+        }
+        buffer.position(HEADER_SIZE);
+
+        // Spawn table
+        char[] spawnIDs = new char[spawns];
+        int[] spawnCols = new int[spawns];
+        int[] spawnRows = new int[spawns];
+        for (int i = 0; i < spawns; i++) {
+            spawnIDs[i] = (char) (buffer.get() & 0xFF);
+            spawnCols[i] = buffer.getInt();
+            spawnRows[i] = buffer.getInt();
+        }
+        // Tiles and the precomputed wall index
+        byte[] tileArray = new byte[(int) tiles];
+        buffer.get(tileArray);
+        long[] walls = new long[(int) ((tiles + 63) >>> 6)];
+        buffer.asLongBuffer().get(walls);
+        buffer.position(buffer.position() + 8 * walls.length);
+        Board board = new Board(width, height, tileArray, walls);
+        int tileFruits = 0;
+        for (byte tile : tileArray) {
+            if (tile == Board.FRUIT) {
+                tileFruits += 1;
+            }
+        }
+        if (tileFruits != fruits) {
+            throw new MapFormatException(filename, 1, 17, "Compiled map has " + fruits + " fruit but its tiles have " + tileFruits);
+        }
+
+        // Navigation fields
+        Navigation navigation = null;
+        if (navFields > Navigation.MAX_PINNED_FIELDS || (navFields > 0 && !Navigation.isSupported(width, height))) {
+            throw new MapFormatException(filename, 1, 25, "Compiled map has more navigation data than can be kept");
+        }
+        if (navFields > 0) {
+            navigation = new Navigation(board);
+            for (int i = 0; i < navFields; i++) {
+                int target = buffer.getInt();
+                short[] field = new short[(int) tiles];
+                buffer.asShortBuffer().get(field);
+                buffer.position(buffer.position() + 2 * field.length);
+                navigation.pin(target, field);
+            }
+        }
+        return new CompiledMap(board, spawnIDs, spawnCols, spawnRows, fruits, navigation);
+    }
+
+    /** Compiles a text map into the binary format.
+    Usage: CompiledMap input.txt output.wmap [--navigation]
+    @param args The input and output paths, optionally followed by --navigation
+    */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: CompiledMap input.txt output" + EXTENSION + " [--navigation]");
+            System.exit(1);
+        }
+        boolean withNavigation = args.length > 2 && args[2].equals("--navigation");
+        try {
+            CompiledMap map = compile(new MapLoader().load(args[0]), withNavigation);
+            map.write(args[1]);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
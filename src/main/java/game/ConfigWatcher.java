@@ -0,0 +1,104 @@
+package game;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+public class ConfigWatcher implements Runnable {
+
+    /** Stores the absolute path of the config file being watched
+    */
+    private final Path path;
+    /** Stores the watch service notified when the config file's directory changes
+    */
+    private final WatchService watchService;
+    /** Stores the thread waiting for changes, or null if the watcher has not been started
+    */
+    private Thread thread;
+    /** Stores the latest valid config, swapped in by the watcher thread and read by the game
+    */
+    private volatile GameConfig config;
+
+    /** Constructs a watcher for the given config file
+    @param path The path of the config file
+    @param config The config currently in use, kept until the file changes
+    @throws IOException If the directory of the file could not be watched
+    */
+    public ConfigWatcher(String path, GameConfig config) throws IOException {
+        this.path = Paths.get(path).toAbsolutePath().normalize();
+        this.config = config;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.path.getParent().register(this.watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = null;
+    }
+
+    /** Starts watching the config file on a daemon thread
+    */
+    public void start() {
+        this.thread = new Thread(this, "config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Waits for changes to the config file, reloading it each time it is written.
+    A config that fails to parse is reported and the previous one is kept.
+    */
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = this.watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (this.path.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ie) {
+            return;
+        } catch (ClosedWatchServiceException cwse) {
+            return;
+        }
+    }
+
+    /** Parses the config file again, keeping the previous config if it is not valid
+    */
+    private void reload() {
+        try {
+            this.config = GameConfig.reload(this.path.toString());
+        } catch (IOException ioe) {
+            // Editors often save in several writes, so a later event may still bring a valid file
+            ioe.printStackTrace();
+        }
+    }
+
+    /** Gets the latest valid config
+    @return The config
+    */
+    public GameConfig getConfig() {
+        return this.config;
+    }
+
+    /** Stops watching the config file
+    */
+    public void close() {
+        try {
+            this.watchService.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
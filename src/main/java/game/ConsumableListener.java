@@ -0,0 +1,11 @@
+package game;
+
+public interface ConsumableListener {
+
+    /** Called after a fruit, superfruit or soda can has been eaten and removed from the consumables
+    @param col The column of the tile
+    @param row The row of the tile
+    @param cellID The cell ID of what was eaten
+    */
+    void consumed(int col, int row, char cellID);
+}
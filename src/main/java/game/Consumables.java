@@ -0,0 +1,242 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Consumables {
+
+    /** Stores the number of columns, which is also the stride between rows
+    */
+    protected final int width;
+    /** Stores the number of rows
+    */
+    protected final int height;
+    /** Stores a bit for every tile holding a fruit, indexed by row * width + column
+    */
+    private final long[] fruit;
+    /** Stores a bit for every tile holding a superfruit
+    */
+    private final long[] superFruit;
+    /** Stores a bit for every tile holding a soda can
+    */
+    private final long[] sodaCans;
+    /** Stores a bit for every tile holding anything that can be eaten, so most tiles are ruled out with one test
+    */
+    private final long[] any;
+    /** Stores the bits the map started with, used to restart
+    */
+    private final long[][] initial;
+    /** Stores the number of fruit remaining
+    */
+    private int fruitCount;
+    /** Stores the number of fruit the map started with
+    */
+    private final int initialFruitCount;
+    /** Stores the listeners told about everything eaten
+    */
+    private final List<ConsumableListener> listeners;
+
+    /** Constructs the consumables from the fruit, superfruit and soda cans on a board
+    @param board The board of the map
+    */
+    public Consumables(Board board) {
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        int words = (this.width * this.height + 63) >>> 6;
+        this.fruit = new long[words];
+        this.superFruit = new long[words];
+        this.sodaCans = new long[words];
+        this.any = new long[words];
+        int count = 0;
+        for (int row = 0; row < this.height; row++) {
+            for (int col = 0; col < this.width; col++) {
+                int i = row * this.width + col;
+                char cellID = board.getCellID(col, row);
+                if (cellID == Board.FRUIT) {
+                    this.fruit[i >>> 6] |= 1L << i;
+                    count += 1;
+                } else if (cellID == Board.SUPER_FRUIT) {
+                    this.superFruit[i >>> 6] |= 1L << i;
+                } else if (cellID == Board.SODA_CAN) {
+                    this.sodaCans[i >>> 6] |= 1L << i;
+                } else {
+                    continue;
+                }
+                this.any[i >>> 6] |= 1L << i;
+            }
+        }
+        this.fruitCount = count;
+        this.initialFruitCount = count;
+        this.initial = new long[][] {this.fruit.clone(), this.superFruit.clone(), this.sodaCans.clone(), this.any.clone()};
+        this.listeners = new ArrayList<ConsumableListener>();
+    }
+
+    /** Adds a listener to be told about everything eaten
+    @param listener The listener to add
+    */
+    public void addListener(ConsumableListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /** Removes a listener
+    @param listener The listener to remove
+    */
+    public void removeListener(ConsumableListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /** Eats whatever is on a tile, telling every listener about it
+    @return The cell ID of what was eaten, or an empty tile if there was nothing to eat
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public char consume(int col, int row) {
+        if (col < 0 || col >= this.width || row < 0 || row >= this.height) {
+            return Board.EMPTY;
+        }
+        int i = row * this.width + col;
+        int word = i >>> 6;
+        long bit = 1L << i;
+        if ((this.any[word] & bit) == 0) {
+            return Board.EMPTY;
+        }
+        char cellID;
+        if ((this.fruit[word] & bit) != 0) {
+            cellID = Board.FRUIT;
+            this.fruit[word] &= ~bit;
+            this.fruitCount -= 1;
+        } else if ((this.superFruit[word] & bit) != 0) {
+            cellID = Board.SUPER_FRUIT;
+            this.superFruit[word] &= ~bit;
+        } else {
+            cellID = Board.SODA_CAN;
+            this.sodaCans[word] &= ~bit;
+        }
+        this.any[word] &= ~bit;
+        for (int l = 0; l < this.listeners.size(); l++) {
+            this.listeners.get(l).consumed(col, row, cellID);
+        }
+        return cellID;
+    }
+
+    /** Checks whether a tile holds anything that can be eaten
+    @return True if the tile holds a fruit, superfruit or soda can
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isConsumable(int col, int row) {
+        return test(this.any, col, row);
+    }
+
+    /** Checks whether a tile holds a fruit
+    @return True if the tile holds a fruit
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isFruit(int col, int row) {
+        return test(this.fruit, col, row);
+    }
+
+    /** Checks whether a tile's bit is set
+    @return True if the tile is on the board and its bit is set
+    @param bits The bitset to check
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    private boolean test(long[] bits, int col, int row) {
+        if (col < 0 || col >= this.width || row < 0 || row >= this.height) {
+            return false;
+        }
+        int i = row * this.width + col;
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Gets the number of fruit remaining
+    @return The number of fruit
+    */
+    public int getRemainingFruit() {
+        return this.fruitCount;
+    }
+
+    /** Counts the fruit remaining in a rectangle of tiles, a row at a time with bit counts
+    @return The number of fruit in the rectangle
+    @param minCol The leftmost column, inclusive
+    @param minRow The top row, inclusive
+    @param maxCol The rightmost column, inclusive
+    @param maxRow The bottom row, inclusive
+    */
+    public int countFruit(int minCol, int minRow, int maxCol, int maxRow) {
+        minCol = Math.max(0, minCol);
+        minRow = Math.max(0, minRow);
+        maxCol = Math.min(this.width - 1, maxCol);
+        maxRow = Math.min(this.height - 1, maxRow);
+        int count = 0;
+        for (int row = minRow; row <= maxRow && minCol <= maxCol; row++) {
+            count += countBits(this.fruit, row * this.width + minCol, row * this.width + maxCol + 1);
+        }
+        return count;
+    }
+
+    /** Counts the set bits in a range of a bitset
+    @return The number of set bits
+    @param bits The bitset
+    @param from The first bit, inclusive
+    @param to The last bit, exclusive
+    */
+    private static int countBits(long[] bits, int from, int to) {
+        int count = 0;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int word = first; word <= last; word++) {
+            long mask = -1L;
+            if (word == first) {
+                mask &= -1L << from;
+            }
+            if (word == last) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            count += Long.bitCount(bits[word] & mask);
+        }
+        return count;
+    }
+
+    /** Finds the remaining fruit closest to a tile, by the number of rows and columns between them
+    @return The tile index of the nearest fruit as row * width + column, or -1 if none are left
+    @param col The column to search from
+    @param row The row to search from
+    */
+    public int getNearestFruit(int col, int row) {
+        int nearest = -1;
+        int best = Integer.MAX_VALUE;
+        for (int word = 0; word < this.fruit.length; word++) {
+            long bits = this.fruit[word];
+            while (bits != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int distance = Math.abs(i % this.width - col) + Math.abs(i / this.width - row);
+                if (distance < best) {
+                    best = distance;
+                    nearest = i;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /** Puts back everything the map started with, without telling the listeners
+    */
+    public void restart() {
+        System.arraycopy(this.initial[0], 0, this.fruit, 0, this.fruit.length);
+        System.arraycopy(this.initial[1], 0, this.superFruit, 0, this.superFruit.length);
+        System.arraycopy(this.initial[2], 0, this.sodaCans, 0, this.sodaCans.length);
+        System.arraycopy(this.initial[3], 0, this.any, 0, this.any.length);
+        this.fruitCount = this.initialFruitCount;
+    }
+
+    /** Gets the number of columns
+    @return The number of columns
+    */
+    public int getWidth() {
+        return this.width;
+    }
+}
@@ -8,9 +8,9 @@ import processing.core.PImage;
 
 public abstract class Entity extends GameObject {
 
-    /** Stores an instance of the app
+    /** Stores the instance of the game the entity belongs to
     */
-    protected App app;
+    protected Game game;
     /** Stores the speed of the entity
     */
     protected int speed;
@@ -35,31 +35,34 @@ public abstract class Entity extends GameObject {
     /** Stores the offset necessary to centre the entity on the screen
     */
     protected int magicOffset;
+    /** Stores the slot of the entity in the game's spatial hash, or -1 if it has not been added
+    */
+    protected int hashSlot;
 
     /** The constructor for the Entity class
     @param x The x coordinate of the entity
     @param y The y coordinate of the entity
     @param cellID The cell ID corresponding to the entity
     @param sprite The sprite of the entity
-    @param app Instance of the app
+    @param game Instance of the game
     */
-    public Entity(int x, int y, char cellID, PImage sprite, App app) {
+    public Entity(int x, int y, char cellID, PImage sprite, Game game) {
         super(x, y, cellID, sprite);
-        this.app = app;
-        this.speed = app.game.speed;
+        this.game = game;
+        this.speed = game.speed;
         this.magicOffset = 5;
         this.alive = true;
         this.defaultX = x;
         this.defaultY = y;
+        this.hashSlot = -1;
     }
 
     /** Checks for a collision event.
     Returns true if waka executes its queued move and its sprite overlaps with a wall sprite.
     @return Returns true if move causes a collision with a wall
     @param moveCode The given mode code
-    @param app The instance of the App
     */
-    public boolean checkCollision(int moveCode, App app) {
+    public boolean checkCollision(int moveCode) {
 
         // Calculate future position assuming move is valid
         int futureX = this.x;
@@ -89,77 +92,74 @@ public abstract class Entity extends GameObject {
             return true;
         }
 
-        // Calculate vertices of the entity
-        int entityLeft = futureX;
-        int entityRight = futureX + 16;
-        int entityTop = futureY;
-        int entityBottom = futureY + 16;
-
-        boolean collision = false;
-
-        // Iterate through every wall in the game
-        for (GameObject wall : app.game.walls) {
-
-            int wallLeft = wall.getX();
-            int wallRight = wall.getX() + wall.getWidth();
-            int wallTop = wall.getY();
-            int wallBottom = wall.getY() + wall.getHeight();
-
-            // Treat the entity and wall as rectangular objects
-            // If the corners of the entity are within the wall, trigger a collision event
-            if (entityLeft < wallRight && entityRight > wallLeft && entityTop < wallBottom && entityBottom > wallTop) {
-                collision = true;
-                break;
+        // Find the range of tiles covered by the entity's 16x16 box
+        int leftCol = futureX / 16;
+        int rightCol = (futureX + 15) / 16;
+        int topRow = futureY / 16;
+        int bottomRow = (futureY + 15) / 16;
+
+        // Only the tiles the entity overlaps can contain a colliding wall
+        for (int row = topRow; row <= bottomRow; row++) {
+            for (int col = leftCol; col <= rightCol; col++) {
+                if (this.game.isWall(col, row)) {
+                    return true;
+                }
             }
         }
-        return collision;
+        return false;
     }
 
     /** Moves the entity given the move code.
     Updates the position of the waka based on the move code and current speed
     @return Returns true if the move was successfully actioned
     @param moveCode The given move
-    @param app The instance of the App
     */
-    public boolean move(int moveCode, App app) {
+    public boolean move(int moveCode) {
         // Return false if invalid move
         if (!(moveCode >= 37 && moveCode <= 40)) {
             return false;
         }
         // If the next queued move is able to be actioned, call move and reset the queued move
-        if (this.nextMove != 0 && !checkCollision(this.nextMove, app)) {
+        if (this.nextMove != 0 && !checkCollision(this.nextMove)) {
             moveCode = this.nextMove;
             this.nextMove = 0;
         }
 
         // Ensure that the move does not cause collision
-        if (checkCollision(moveCode, app)) {
+        if (checkCollision(moveCode)) {
             return false;
         }
 
+        step(moveCode);
+        return true;
+    }
+
+    /** Moves the entity one step in the given direction without checking for collisions.
+    Only used once the move is known to be clear, such as along a corridor.
+    @param moveCode The given move, which must be a direction
+    */
+    protected void step(int moveCode) {
         // Increment the position of the entity depending on the move
         // Set the last move
         if (moveCode == 38) {
             //Up
             this.y -= this.speed;
             this.lastMove = 38;
-            return true;
         } else if (moveCode == 37) {
             //Left
             this.x -= this.speed;
             this.lastMove = 37;
-            return true;
         } else if (moveCode == 40) {
             //Down
             this.y += this.speed;
             this.lastMove = 40;
-            return true;
         } else {
             //Right, ie. moveCode == 39
             this.x += this.speed;
             this.lastMove = 39;
-            return true;
         }
+        // Move the entity to the bucket of its new tile
+        this.game.spatialHash.update(this);
     }
 
     /** Resets the entity's position to its starting position
@@ -167,6 +167,31 @@ public abstract class Entity extends GameObject {
     public void reset() {
         this.x = this.defaultX;
         this.y = this.defaultY;
+        this.game.spatialHash.update(this);
+    }
+
+    /** Sets the x position, keeping the spatial hash up to date
+    @param x The x value
+    */
+    public void setX(int x) {
+        this.x = x;
+        this.game.spatialHash.update(this);
+    }
+
+    /** Sets the y position, keeping the spatial hash up to date
+    @param y The y value
+    */
+    public void setY(int y) {
+        this.y = y;
+        this.game.spatialHash.update(this);
+    }
+
+    /** Restores the entity to the state it started the game in
+    */
+    public void restart() {
+        this.reset();
+        this.alive = true;
+        this.nextMove = 0;
     }
 
     /** Returns the initial x value
@@ -210,4 +235,18 @@ public abstract class Entity extends GameObject {
     public void setAlive(boolean bool) {
         this.alive = bool;
     }
+
+    /** Gets the speed of the entity
+    @return The speed in pixels per tick
+    */
+    public int getSpeed() {
+        return this.speed;
+    }
+
+    /** Sets the speed of the entity, which should only change while it is lined up with a tile
+    @param speed The speed in pixels per tick
+    */
+    public void setSpeed(int speed) {
+        this.speed = speed;
+    }
 }
@@ -3,19 +3,13 @@ package game;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.List;
+import java.util.Map;
 import java.io.File;
-import java.io.FileNotFoundException;
-
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Iterator;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 import processing.core.PApplet;
+import processing.core.PGraphics;
 import processing.core.PImage;
 
 import ghost.*;
@@ -24,16 +18,35 @@ import waka.*;
 
 public class Game {
 
+    /** The name of the mode in which ghosts head for their corners
+    */
+    public static final String SCATTER = "scatter";
+    /** The name of the mode in which ghosts chase the waka
+    */
+    public static final String CHASE = "chase";
+    /** The name of the mode in which ghosts wander randomly and can be eaten
+    */
+    public static final String FRIGHTENED = "frightened";
+
     /** Pairs all the cell IDs to a specific path, corresponding to the cell sprite
     */
     public HashMap<Character, String> cellResources;
-    /** Stores a 2d matrix of game objects
+    /** Stores the tiles of the map as a flat array of cell IDs
+    */
+    public Board board;
+    /** Stores an untouched copy of the board as it was loaded, used to restart the game
     */
-    public ArrayList<ArrayList<GameObject>> gameGrid;
-    /** Stores the instance of the app
+    public Board template;
+    /** Stores a read only 2d matrix of game objects backed by the board
+    */
+    public List<List<GameObject>> gameGrid;
+    /** Stores the instance of the app, null when the game is running headless
     */
     public App app;
 
+    /** Stores the settings the game was configured with, or null if its fields were set directly
+    */
+    public GameConfig config;
     /** Stores the map filename
     */
     public String filename;
@@ -45,26 +58,20 @@ public class Game {
     public int speed;
     /** Stores the length of the modes specified
     */
-    public ArrayList<Integer> modeLengths;
-    /** Stores the current index of the mode lengths
+    public int[] modeLengths;
+    /** Stores the name of the ghost strategy bound to each map character
     */
-    public int modeCursor;
-
-    /** Stores whether the ghosts are currently scattering
-    */
-    public boolean scatterState;
-    /** Stores whether the ghosts are currently frightened and invisible
+    public Map<Character, String> ghostTypes;
+    /** Stores the number of ticks simulated since the game started
     */
-    public boolean sodaCanEffect;
-    /** Stores whether the ghosts are currently frightened
-    */
-    public boolean frightened;
+    public int tick;
+
     /** Stores the length of the frightned mode
     */
     public int frightenedLength;
-    /** Stores the elapsed time since eating the superfruit
+    /** Stores the scheduler deciding whether the ghosts scatter, chase or are frightened
     */
-    public int frightenedTime;
+    public ModeScheduler modes;
 
     /** Stores the waka instance
     */
@@ -72,32 +79,90 @@ public class Game {
     /** Stores a list of all the ghosts
     */
     public ArrayList<Ghost> ghosts;
-    /** Stores a list of all the walls
+    /** Stores every entity bucketed by the tile it is on, used for collision queries
+    */
+    public SpatialHash spatialHash;
+    /** Stores the state the ghosts target from, captured at the start of every tick
+    */
+    public WorldSnapshot world;
+    /** Stores the walking distance fields used by the ghosts to find their way around walls
+    */
+    public Navigation navigation;
+    /** Stores the exits of every tile, so entities only decide where to go at junctions
+    */
+    public JunctionGraph junctions;
+
+    /** Stores the static maze rendered offscreen, created on the first draw
+    */
+    public PGraphics mazeLayer;
+    /** Stores whether the whole maze layer needs to be redrawn
+    */
+    private boolean mazeStale;
+    /** Stores the board index of the cells changed since the maze layer was last drawn
+    */
+    private int[] dirtyCells;
+    /** Stores the number of changed cells waiting to be redrawn
     */
-    public ArrayList<GameObject> walls;
-    /** Stores the number of fruit remaining
+    private int dirtyCount;
+    /** Stores the fruit, superfruit and soda cans left to eat
+    */
+    public Consumables consumables;
+    /** Stores the number of fruit remaining, kept in step with the consumables
     */
     public int fruits;
+    /** Stores the number of lives the game starts with
+    */
+    public int startingLives;
 
     /** Stores whether the game is currently resetting
     */
     public boolean resetGame;
 
+    /** Stores the seed the random number generator is started from
+    */
+    public long seed;
+    /** Stores the random number generator of this game, so runs can be reproduced from the seed
+    */
+    public GameRandom random;
+    /** Stores the metrics the game's phases are timed into, or null if the game is not being measured
+    */
+    public Metrics metrics;
+    /** Stores the key presses waiting for the next tick, filled from the input thread
+    */
+    public InputQueue inputQueue;
+    /** Stores the recorder the key presses are logged to, or null if the game is not being recorded
+    */
+    public InputRecorder recorder;
+
     /** Constructs a new game object
-    @param app Instance of the app
+    @param app Instance of the app, or null to run the game headless
     */
     public Game(App app) {
         this.app = app;
         this.cellResources = new HashMap<Character, String>();
-        this.gameGrid = new ArrayList<ArrayList<GameObject>>();
-        this.walls = new ArrayList<GameObject>();
+        this.board = new Board(0, 0);
+        this.template = this.board;
+        this.gameGrid = this.board.asGameObjects(this);
+        this.mazeLayer = null;
+        this.dirtyCells = new int[16];
+        this.dirtyCount = 0;
         this.ghosts = new ArrayList<Ghost>();
-        this.modeLengths = new ArrayList<Integer>();
+        this.spatialHash = new SpatialHash(0, 0);
+        this.consumables = new Consumables(this.board);
+        this.config = null;
+        this.modeLengths = new int[0];
+        this.ghostTypes = GhostStrategies.getDefaultBindings();
         this.waka = null;
         this.frightenedLength = 7;
         this.filename = null;
-        this.scatterState = true;
-        this.modeCursor = 0;
+        this.modes = new ModeScheduler(this.modeLengths, this.frightenedLength);
+        this.world = new WorldSnapshot(new GhostRegistry(this.ghosts), 0);
+        this.tick = 0;
+        this.seed = 0;
+        this.random = new GameRandom(this.seed);
+        this.recorder = null;
+        this.metrics = null;
+        this.inputQueue = new InputQueue();
         loadResources();
     }
 
@@ -123,150 +188,326 @@ public class Game {
     }
 
 
-    /** Parses the JSON file and sets the corresponding attributes
-    @param app The instance of the App
+    /** Applies the settings in the config file, which is only parsed the first time it is read
     */
-    public void parseJSON(App app) {
-        // Create a JSONParser object
-        JSONParser jsonParser = new JSONParser();
+    public void parseJSON() {
         try {
-            // Parse the config file
-            FileReader fReader = new FileReader("config.json");
-            JSONObject jsonObject = (JSONObject) jsonParser.parse(fReader);
-
-            // Store the values into instance attributes
-            this.filename = jsonObject.get("map").toString();
-            this.lives = Integer.parseInt(jsonObject.get("lives").toString());
-            this.speed = Integer.parseInt(jsonObject.get("speed").toString());
-            String frightenedLength = jsonObject.get("frightenedLength").toString();
-            this.frightenedLength = Integer.parseInt(frightenedLength);
-
-            // Iterate through the list of mode lengths
-            JSONArray jsonArray = (JSONArray) jsonObject.get("modeLengths");
-            for (Object obj : jsonArray) {
-                // Store the modes within an integer array list
-                int mode = Integer.parseInt(obj.toString());
-                this.modeLengths.add(mode);
-            }
-        } catch (FileNotFoundException fnfe) {
-            fnfe.printStackTrace();
-            return;
+            applyConfig(GameConfig.load(GameConfig.DEFAULT_PATH));
         } catch (IOException ioe) {
             ioe.printStackTrace();
-            return;
-        } catch (ParseException pe) {
-            pe.printStackTrace();
-            return;
         }
     }
 
-    /** Loads the map into a 2d matrix of GameObjects.
+    /** Applies a config to the game.
+    The new settings take effect for the entities straight away, and for the lives on the next restart.
+    The map is only read by loadGame, so a config naming a different map needs a new game.
+    @param config The config to apply
+    */
+    public void applyConfig(GameConfig config) {
+        this.config = config;
+        this.filename = config.getMap();
+        this.lives = config.getLives();
+        this.startingLives = this.lives;
+        this.speed = config.getSpeed();
+        this.frightenedLength = config.getFrightenedLength();
+        this.modeLengths = config.getModeLengths();
+        this.ghostTypes = config.getGhosts();
+        if (this.waka != null) {
+            this.waka.setSpeed(this.speed);
+        }
+        for (Ghost ghost : this.ghosts) {
+            ghost.setSpeed(this.speed);
+        }
+    }
+
+    /** Gets the sprite for the given cell ID
+    @return The shared sprite, or null when the game is running headless
+    @param cellID The cell ID
+    */
+    public PImage getCellSprite(char cellID) {
+        return SpriteCache.getCell(this.app, cellID, this.cellResources.get(cellID));
+    }
+
+    /** Loads the map into a board of cell IDs.
     Iterates through the map who's path given in the config file.
-    Each game object has its coordiantes incremented by an offset of 16 pixels.
-    The cell sprite path is fetched from the hash map using the cell ID as a key.
-    @return A 2d matrix of GameObjects
-    @param app The instance of the App
+    Maps ending in .wmap are read in the compiled binary format, anything else is read as a text map.
+    Each entity has its coordiantes incremented by an offset of 16 pixels per tile.
+    @return A read only 2d matrix of GameObjects backed by the board
     */
-    public ArrayList<ArrayList<GameObject>> loadGame(App app) {
+    public List<List<GameObject>> loadGame() {
         // Null check
         if (this.filename == null || this.filename.equals("")) {
             return null;
         }
-        // Create 2d game matrix of game objects
-        ArrayList<ArrayList<GameObject>> gameMatrix = new ArrayList<ArrayList<GameObject>>();
-
+        GameEvents.LoadGame event = new GameEvents.LoadGame();
+        event.begin();
+        boolean compiled = this.filename.endsWith(CompiledMap.EXTENSION);
+        List<List<GameObject>> grid = null;
         try {
-            // Read into the file
-            File file = new File(this.filename);
-            Scanner scan = new Scanner(file);
-
-            int y = 0;
-            while (scan.hasNextLine()) {
-                // Store the current line as a String
-                String line = scan.nextLine();
-                // Create an array for the current row
-                ArrayList<GameObject> currentRow = new ArrayList<GameObject>();
-                int x = 0;
-                // Iterate through the line
-                for (char cellID : line.toCharArray()) {
-
-                    // Find the corresponding cellSpritePath from the hashmap
-                    String cellSpritePath = cellResources.get(cellID);
-                    // Load the sprite
-                    PImage cellSprite = app.loadImage(cellSpritePath);
-                    // Construct the cell object
-                    Cell cell = new Cell(x, y, cellID, cellSprite);
-
-                    // If the cell is a player
-                    if (cellID == 'p') {
-                        // Create a waka object
-                        Waka waka = new Waka(x, y, cellID, cellSprite, app);
-                        // Assign it to the game
-                        waka.app = app;
-                        this.waka = waka;
-                    } else if ("aciw".contains(Character.toString(cellID))) {
-                        // If the cell ID corresponds to a ghost
-                        // Create a subtype corresponding to the cell ID
-                        Ghost ghost = null;
-                        if (cellID == 'a') {
-                            ghost = new Ambusher(x, y, cellID, cellSprite, app);
-                        } else if (cellID == 'c') {
-                            ghost = new Chaser(x, y, cellID, cellSprite, app);
-                        } else if (cellID == 'i') {
-                            ghost = new Ignorant(x, y, cellID, cellSprite, app);
-                        } else if (cellID == 'w') {
-                            ghost = new Whim(x, y, cellID, cellSprite, app);
-                        }
-                        ghost.isGhost = true;
-                        // Add the ghost to the list of ghosts
-                        this.ghosts.add(ghost);
-                    } else if (cellID == 's') {
-                        cell.isSodaCan = true;
-                    } else {
-                        int value = Character.getNumericValue(cellID);
-                        // If the cell is a wall
-                        if (value >= 1 && value <= 6) {
-                            this.walls.add(cell);
-                        } else if (value == 7) {
-                            // If the cell is a fruit
-                            cell.isFruit = true;
-                            this.fruits += 1;
-                        } else if (value == 8) {
-                            // If the cell is a superfruit
-                            cell.isSuperFruit = true;
-                        }
-                    }
-                    // Add the object to the current row
-                    currentRow.add(cell);
-                    x += 16;
+            if (compiled) {
+                loadMap(CompiledMap.read(this.filename));
+            } else {
+                loadBoard(readBoard(this.filename, this.config != null ? this.config.getCellIDs() : MapLoader.DEFAULT_CELL_IDS));
+            }
+            grid = this.gameGrid;
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.map = this.filename;
+            event.compiled = compiled;
+            event.loaded = grid != null;
+            event.ghosts = this.ghosts.size();
+            event.commit();
+        }
+        return grid;
+    }
+
+    /** Reads a map file into a board of cell IDs
+    @return The board of the map
+    @param filename The path of the map file, either a text map or a compiled .wmap
+    @throws MapFormatException If the map is not valid
+    @throws IOException If the map file could not be read
+    */
+    public static Board readBoard(String filename) throws IOException {
+        return readBoard(filename, MapLoader.DEFAULT_CELL_IDS);
+    }
+
+    /** Reads a map file into a board of cell IDs, accepting the given cell IDs in text maps
+    @return The board of the map
+    @param filename The path of the map file, either a text map or a compiled .wmap
+    @param cellIDs Every cell ID that may appear in a text map
+    @throws MapFormatException If the map is not valid
+    @throws IOException If the map file could not be read
+    */
+    public static Board readBoard(String filename, String cellIDs) throws IOException {
+        if (filename.endsWith(CompiledMap.EXTENSION)) {
+            return CompiledMap.read(filename).board;
+        }
+        return new MapLoader(cellIDs).load(filename);
+    }
+
+    /** Sets up the game from a loaded board, creating the entities and counting the fruit
+    @param board The board of the map
+    */
+    public void loadBoard(Board board) {
+        loadMap(CompiledMap.compile(board, false));
+    }
+
+    /** Sets up the game from a compiled map, creating the entities from its spawn table
+    @param map The compiled map
+    */
+    public void loadMap(CompiledMap map) {
+        this.board = map.board;
+        this.template = map.board.copy();
+        this.startingLives = this.lives;
+        this.gameGrid = this.board.asGameObjects(this);
+        this.spatialHash = new SpatialHash(this.board.getWidth(), this.board.getHeight());
+        // Resolve the strategy bound to each map character once, rather than per spawn
+        GhostStrategy[] strategies = GhostStrategies.compile(this.ghostTypes);
+        for (int i = 0; i < map.spawnIDs.length; i++) {
+            char cellID = map.spawnIDs[i];
+            int x = map.spawnCols[i] * Board.TILE_SIZE;
+            int y = map.spawnRows[i] * Board.TILE_SIZE;
+
+            // If the cell is a player
+            if (cellID == 'p') {
+                // Create a waka object and assign it to the game
+                this.waka = new Waka(x, y, cellID, getCellSprite(cellID), this);
+                this.spatialHash.add(this.waka);
+            } else if (cellID < strategies.length && strategies[cellID] != null) {
+                // If the cell ID is bound to a ghost strategy, create a ghost following it
+                Ghost ghost = new Ghost(x, y, cellID, strategies[cellID], this);
+                ghost.isGhost = true;
+                // Add the ghost to the list of ghosts
+                this.ghosts.add(ghost);
+                this.spatialHash.add(ghost);
+            }
+        }
+        this.modes = new ModeScheduler(this.modeLengths, this.frightenedLength);
+        this.consumables = new Consumables(this.board);
+        // Counted from the tiles, so the win condition cannot disagree with the fruit on the board
+        this.fruits = this.consumables.getRemainingFruit();
+        // Clear eaten tiles from the board and patch them on the maze layer
+        this.consumables.addListener(new ConsumableListener() {
+            public void consumed(int col, int row, char cellID) {
+                board.setCellID(col, row, Board.EMPTY);
+                markDirty(col, row);
+            }
+        });
+        // Keep the fruit count the win condition is checked against
+        this.consumables.addListener(new ConsumableListener() {
+            public void consumed(int col, int row, char cellID) {
+                if (cellID == Board.FRUIT) {
+                    fruits = consumables.getRemainingFruit();
                 }
-                // Add the row to the 2d matrix of game objects
-                gameMatrix.add(currentRow);
-                y += 16;
             }
-            this.gameGrid = gameMatrix;
-            return gameMatrix;
-        } catch (FileNotFoundException fnfe) {
-            fnfe.printStackTrace();
-            return null;
+        });
+        // Find the junctions once, the walls never change while the map is loaded
+        this.junctions = new JunctionGraph(this.board);
+        // Use the compiled navigation data if there is any, keeping the field towards each scatter corner.
+        // Maps too large for distance fields leave the ghosts on straight line distances
+        if (map.navigation != null) {
+            this.navigation = map.navigation;
+        } else if (Navigation.isSupported(this.board.getWidth(), this.board.getHeight())) {
+            this.navigation = new Navigation(this.board);
+        } else {
+            this.navigation = null;
         }
+        if (this.navigation != null) {
+            for (Ghost ghost : this.ghosts) {
+                this.navigation.pin(ghost.getCornerX(), ghost.getCornerY());
+            }
+        }
+        // Resolve the ghosts by type once, rather than searching for them every tick
+        this.world = new WorldSnapshot(new GhostRegistry(this.ghosts), this.ghosts.size());
+        this.world.capture(this);
+    }
+
+    /** Restores the game to the state it was in when the map was loaded.
+    The map and settings already in memory are reused, so no files are read again.
+    */
+    public void restart() {
+        // Restore the eaten fruit and power ups, and redraw the whole maze
+        this.board.copyFrom(this.template);
+        this.consumables.restart();
+        this.fruits = this.consumables.getRemainingFruit();
+        this.lives = this.startingLives;
+        this.dirtyCount = 0;
+        this.mazeStale = true;
+
+        // Reset the entities
+        this.waka.restart();
+        for (Ghost ghost : this.ghosts) {
+            ghost.restart();
+        }
+
+        // Reset the mode and timers, picking up any change to the mode lengths
+        this.modes = new ModeScheduler(this.modeLengths, this.frightenedLength);
+        this.tick = 0;
+        this.resetGame = false;
+        this.random.setSeed(this.seed);
+        // Drop any key presses made on the win or lose screen
+        this.inputQueue.clear();
+        this.world.capture(this);
+    }
+
+    /** Sets the seed and restarts the random number generator from it
+    @param seed The seed of the game
+    */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.random.setSeed(seed);
+    }
+
+    /** Passes a key press to the waka, logging it to the recorder if there is one.
+    Must be called from the thread ticking the game, other threads should queue key presses on the input queue.
+    @param keyCode The key code of the key pressed
+    */
+    public void handleInput(int keyCode) {
+        if (this.recorder != null) {
+            try {
+                this.recorder.record(this.tick, keyCode);
+            } catch (IOException ioe) {
+                // Stop recording rather than interrupting the game
+                ioe.printStackTrace();
+                this.recorder = null;
+            }
+        }
+        this.waka.handleInput(keyCode);
+    }
+
+    /** Gets the length of each mode
+    @return A copy of the mode lengths in seconds
+    */
+    public int[] getModeLengths() {
+        return this.modeLengths.clone();
+    }
+
+    /** Gets the settings the game is currently running with
+    @return The config built from the game's current settings
+    */
+    public GameConfig getConfig() {
+        return new GameConfig(this.filename, this.startingLives, this.speed, this.frightenedLength, this.modeLengths, this.ghostTypes);
+    }
+
+    /** Gets the name of the mode the ghosts are in
+    @return One of SCATTER, CHASE or FRIGHTENED
+    */
+    public String getModeName() {
+        ModeSnapshot mode = this.modes.getSnapshot();
+        if (mode.frightened) {
+            return FRIGHTENED;
+        }
+        return mode.scatter ? SCATTER : CHASE;
+    }
+
+    /** Calculates a hash of everything that affects how the game plays out.
+    Two runs that end with the same hash reached the same state.
+    @return The hash of the game state
+    */
+    public long stateHash() {
+        long hash = 0xCBF29CE484222325L;
+        hash = mix(hash, this.tick);
+        hash = mix(hash, this.lives);
+        hash = mix(hash, this.fruits);
+        ModeSnapshot mode = this.modes.getSnapshot();
+        hash = mix(hash, mode.modeCursor);
+        hash = mix(hash, this.modes.getNextTransition());
+        hash = mix(hash, this.modes.getFrightenedEnd());
+        hash = mix(hash, (mode.scatter ? 1 : 0) | (mode.frightened ? 2 : 0) | (mode.invisible ? 4 : 0));
+        if (this.waka != null) {
+            hash = mix(hash, this.waka.getX());
+            hash = mix(hash, this.waka.getY());
+            hash = mix(hash, this.waka.getLastMove());
+        }
+        for (Ghost ghost : this.ghosts) {
+            hash = mix(hash, ghost.getX());
+            hash = mix(hash, ghost.getY());
+            hash = mix(hash, ghost.getLastMove());
+            hash = mix(hash, ghost.isAlive() ? 1 : 0);
+        }
+        for (int row = 0; row < this.board.getHeight(); row++) {
+            for (int col = 0; col < this.board.getWidth(); col++) {
+                hash = mix(hash, this.board.getCellID(col, row));
+            }
+        }
+        return hash;
+    }
+
+    /** Mixes a value into a running FNV-1a style hash
+    @return The updated hash
+    @param hash The hash so far
+    @param value The value to mix in
+    */
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001B3L;
+    }
+
+    /** Checks whether the tile at the given column and row is a wall
+    @return True if the tile is a wall, false if it is open or outside the map
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isWall(int col, int row) {
+        return this.board.isWall(col, row);
     }
 
     /** Checks for whether the game has reached a win or loss condition
     @return Returns true if the game needs to be reset
-    @param app An instance of the app
-    */
-    public boolean checkWinOrLose(App app) {
-        if (this.fruits == 0) {
-            // Win the game if the number of fruits equals 0
-            drawWin(app);
-            return true;
-        } else if (this.lives == 0) {
-            // Lose the game if the lives have all been lost
-            drawLose(app);
-            return true;
-        }
-        return false;
+    */
+    public boolean checkWinOrLose() {
+        // Win the game if the number of fruits equals 0
+        // Lose the game if the lives have all been lost
+        return isWon() || this.lives == 0;
+    }
+
+    /** Checks for whether every fruit has been eaten
+    @return Returns true if the game has been won
+    */
+    public boolean isWon() {
+        return this.fruits == 0;
     }
 
     /** Draws the winning screen if all the fruits have been consumed
@@ -285,20 +526,81 @@ public class Game {
         app.text("GAME OVER", 160, 260);
     }
 
-    /** Draws the gamegrid to the screen
+    /** Checks whether the given cell ID is part of the static maze rather than an entity's starting position
+    @return True if the cell is drawn as part of the maze
+    @param cellID The cell ID to check
+    */
+    public static boolean isMazeCell(char cellID) {
+        // Any other character is a spawn, so ghosts can be bound to new map characters
+        return (cellID >= Board.EMPTY && cellID <= Board.SUPER_FRUIT) || cellID == Board.SODA_CAN;
+    }
+
+    /** Marks a cell as changed so it is redrawn onto the maze layer on the next frame
+    @param col The column of the cell
+    @param row The row of the cell
+    */
+    public void markDirty(int col, int row) {
+        if (this.dirtyCount == this.dirtyCells.length) {
+            this.dirtyCells = Arrays.copyOf(this.dirtyCells, this.dirtyCells.length * 2);
+        }
+        this.dirtyCells[this.dirtyCount] = this.board.index(col, row);
+        this.dirtyCount += 1;
+    }
+
+    /** Draws a single cell of the game grid onto the maze layer, clearing whatever was there before
+    @param col The column of the cell
+    @param row The row of the cell
+    */
+    private void drawMazeCell(int col, int row) {
+        char cellID = this.board.getCellID(col, row);
+        int x = col * Board.TILE_SIZE;
+        int y = row * Board.TILE_SIZE;
+        this.mazeLayer.fill(0);
+        this.mazeLayer.rect(x, y, Board.TILE_SIZE, Board.TILE_SIZE);
+        PImage sprite = getCellSprite(cellID);
+        if (isMazeCell(cellID) && sprite != null) {
+            this.mazeLayer.image(sprite, x, y);
+        }
+    }
+
+    /** Renders the whole game grid onto the offscreen maze layer
+    */
+    public void renderMaze() {
+        if (this.mazeLayer == null) {
+            this.mazeLayer = this.app.createGraphics(App.WIDTH, App.HEIGHT);
+        }
+        this.mazeLayer.beginDraw();
+        this.mazeLayer.background(0);
+        this.mazeLayer.noStroke();
+        // Iterates through the game matrix and draws each static cell to the layer
+        for (int row = 0; row < this.board.getHeight(); row++) {
+            for (int col = 0; col < this.board.getWidth(); col++) {
+                drawMazeCell(col, row);
+            }
+        }
+        this.mazeLayer.endDraw();
+        this.dirtyCount = 0;
+        this.mazeStale = false;
+    }
+
+    /** Draws the gamegrid to the screen.
+    The maze is rendered once into an offscreen layer, only the cells changed since the last frame are redrawn,
+    and the layer is then drawn to the screen in one call.
     */
     public void draw() {
-        // Iterates through the game matrix and draws each gameobject to the screen
-        for (ArrayList<GameObject> row : this.gameGrid) {
-            for (GameObject obj : row) {
-                // Null check
-                if (obj == null) {
-                    continue;
-                }
-                if (!("aciwgp".contains(Character.toString(obj.getCellID())))) {
-                    app.image(obj.getSprite(), obj.getX(), obj.getY());
-                }
+        if (this.mazeLayer == null || this.mazeStale) {
+            renderMaze();
+        } else if (this.dirtyCount > 0) {
+            // Patches the cells that have changed since the last frame
+            this.mazeLayer.beginDraw();
+            this.mazeLayer.noStroke();
+            for (int i = 0; i < this.dirtyCount; i++) {
+                int cell = this.dirtyCells[i];
+                drawMazeCell(cell % this.board.getWidth(), cell / this.board.getWidth());
             }
+            this.mazeLayer.endDraw();
+            this.dirtyCount = 0;
         }
+        this.app.image(this.mazeLayer, 0, 0);
     }
 }
@@ -0,0 +1,321 @@
+package game;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import ghost.*;
+
+public final class GameConfig {
+
+    /** The path of the config file read by the app
+    */
+    public static final String DEFAULT_PATH = "config.json";
+
+    /** Stores every config parsed so far, keyed by the absolute path of its file
+    */
+    private static final HashMap<String, GameConfig> configs = new HashMap<String, GameConfig>();
+
+    /** Stores the map filename
+    */
+    private final String map;
+    /** Stores the number of lives the game starts with
+    */
+    private final int lives;
+    /** Stores the speed of the entities in pixels per tick
+    */
+    private final int speed;
+    /** Stores the length of the frightened mode in seconds
+    */
+    private final int frightenedLength;
+    /** Stores the length of each scatter and chase mode in seconds
+    */
+    private final int[] modeLengths;
+    /** Stores the name of the ghost strategy bound to each map character
+    */
+    private final Map<Character, String> ghosts;
+
+    /** Constructs a validated config with the default ghost strategies
+    @param map The map filename
+    @param lives The number of lives the game starts with
+    @param speed The speed of the entities in pixels per tick
+    @param frightenedLength The length of the frightened mode in seconds
+    @param modeLengths The length of each scatter and chase mode in seconds
+    @throws IllegalArgumentException If any of the settings is out of range
+    */
+    public GameConfig(String map, int lives, int speed, int frightenedLength, int[] modeLengths) {
+        this(map, lives, speed, frightenedLength, modeLengths, GhostStrategies.getDefaultBindings());
+    }
+
+    /** Constructs a validated config
+    @param map The map filename
+    @param lives The number of lives the game starts with
+    @param speed The speed of the entities in pixels per tick
+    @param frightenedLength The length of the frightened mode in seconds
+    @param modeLengths The length of each scatter and chase mode in seconds
+    @param ghosts The name of the ghost strategy bound to each map character
+    @throws IllegalArgumentException If any of the settings is out of range
+    */
+    public GameConfig(String map, int lives, int speed, int frightenedLength, int[] modeLengths, Map<Character, String> ghosts) {
+        if (map == null || map.equals("")) {
+            throw new IllegalArgumentException("map must name a map file");
+        }
+        if (lives <= 0) {
+            throw new IllegalArgumentException("lives must be positive, was " + lives);
+        }
+        // Entities only turn when lined up with a tile, so their speed must divide the tile size
+        if (speed <= 0 || Board.TILE_SIZE % speed != 0) {
+            throw new IllegalArgumentException("speed must divide " + Board.TILE_SIZE + ", was " + speed);
+        }
+        if (frightenedLength < 0) {
+            throw new IllegalArgumentException("frightenedLength must not be negative, was " + frightenedLength);
+        }
+        if (modeLengths == null || modeLengths.length == 0) {
+            throw new IllegalArgumentException("modeLengths must not be empty");
+        }
+        for (int length : modeLengths) {
+            if (length < 0) {
+                throw new IllegalArgumentException("modeLengths must not be negative, was " + length);
+            }
+        }
+        if (ghosts == null) {
+            throw new IllegalArgumentException("ghosts must not be null");
+        }
+        for (Map.Entry<Character, String> binding : ghosts.entrySet()) {
+            char cellID = binding.getKey();
+            // Ghosts may be bound to any ASCII character the maze and the waka do not already use
+            if (cellID >= 128 || cellID <= ' ' || cellID == 'p' || Game.isMazeCell(cellID)) {
+                throw new IllegalArgumentException("ghosts cannot be bound to '" + cellID + "'");
+            }
+            if (GhostStrategies.get(binding.getValue()) == null) {
+                throw new IllegalArgumentException("ghosts binds '" + cellID + "' to unknown strategy " + binding.getValue());
+            }
+        }
+        this.map = map;
+        this.lives = lives;
+        this.speed = speed;
+        this.frightenedLength = frightenedLength;
+        this.modeLengths = modeLengths.clone();
+        this.ghosts = Collections.unmodifiableMap(new LinkedHashMap<Character, String>(ghosts));
+    }
+
+    /** Gets the config in the given file, parsing it only the first time it is requested
+    @return The shared config
+    @param path The path of the config file
+    @throws IOException If the file could not be read or is not a valid config
+    */
+    public static synchronized GameConfig load(String path) throws IOException {
+        GameConfig config = configs.get(key(path));
+        if (config == null) {
+            config = reload(path);
+        }
+        return config;
+    }
+
+    /** Parses the config in the given file again, replacing the cached copy if it is valid
+    @return The new config
+    @param path The path of the config file
+    @throws IOException If the file could not be read or is not a valid config
+    */
+    public static synchronized GameConfig reload(String path) throws IOException {
+        Reader reader = new FileReader(path);
+        GameConfig config;
+        try {
+            config = parse(reader, path);
+        } finally {
+            reader.close();
+        }
+        configs.put(key(path), config);
+        return config;
+    }
+
+    /** Parses a config from JSON
+    @return The config
+    @param reader The JSON to parse
+    @param source The name of the config, used in error messages
+    @throws IOException If the JSON could not be read or is not a valid config
+    */
+    public static GameConfig parse(Reader reader, String source) throws IOException {
+        try {
+            Object parsed = new JSONParser().parse(reader);
+            if (!(parsed instanceof JSONObject)) {
+                throw new IOException(source + ": expected a JSON object");
+            }
+            JSONObject jsonObject = (JSONObject) parsed;
+
+            Object map = jsonObject.get("map");
+            if (!(map instanceof String)) {
+                throw new IOException(source + ": map must be a string");
+            }
+            Object modes = jsonObject.get("modeLengths");
+            if (!(modes instanceof JSONArray)) {
+                throw new IOException(source + ": modeLengths must be an array");
+            }
+            JSONArray jsonArray = (JSONArray) modes;
+            int[] modeLengths = new int[jsonArray.size()];
+            for (int i = 0; i < modeLengths.length; i++) {
+                modeLengths[i] = toInt(jsonArray.get(i), "modeLengths[" + i + "]", source);
+            }
+            // The ghost bindings are optional, leaving every strategy on its default map character
+            Map<Character, String> ghosts = GhostStrategies.getDefaultBindings();
+            Object bindings = jsonObject.get("ghosts");
+            if (bindings != null) {
+                ghosts = parseGhosts(bindings, source);
+            }
+            return new GameConfig((String) map,
+                getInt(jsonObject, "lives", source),
+                getInt(jsonObject, "speed", source),
+                getInt(jsonObject, "frightenedLength", source),
+                modeLengths,
+                ghosts);
+        } catch (ParseException pe) {
+            throw new IOException(source + ": " + pe, pe);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(source + ": " + iae.getMessage(), iae);
+        }
+    }
+
+    /** Parses the map characters ghost strategies are bound to
+    @return The name of the strategy bound to each map character
+    @param bindings The parsed JSON object of map characters to strategy names
+    @param source The name of the config, used in error messages
+    @throws IOException If the bindings are not an object of single characters to names
+    */
+    private static Map<Character, String> parseGhosts(Object bindings, String source) throws IOException {
+        if (!(bindings instanceof JSONObject)) {
+            throw new IOException(source + ": ghosts must be an object");
+        }
+        Map<Character, String> ghosts = new LinkedHashMap<Character, String>();
+        for (Object entry : ((JSONObject) bindings).entrySet()) {
+            Map.Entry<?, ?> binding = (Map.Entry<?, ?>) entry;
+            String cellID = (String) binding.getKey();
+            if (cellID.length() != 1) {
+                throw new IOException(source + ": ghosts must be bound to single characters, was " + cellID);
+            }
+            if (!(binding.getValue() instanceof String)) {
+                throw new IOException(source + ": ghosts." + cellID + " must be a string");
+            }
+            ghosts.put(cellID.charAt(0), (String) binding.getValue());
+        }
+        return ghosts;
+    }
+
+    /** Gets a whole number setting from a JSON object
+    @return The value of the setting
+    @param jsonObject The object holding the setting
+    @param name The name of the setting
+    @param source The name of the config, used in error messages
+    @throws IOException If the setting is missing or not a whole number
+    */
+    private static int getInt(JSONObject jsonObject, String name, String source) throws IOException {
+        return toInt(jsonObject.get(name), name, source);
+    }
+
+    /** Converts a parsed JSON value to a whole number
+    @return The value as an int
+    @param value The parsed value
+    @param name The name of the setting, used in error messages
+    @param source The name of the config, used in error messages
+    @throws IOException If the value is not a whole number that fits in an int
+    */
+    private static int toInt(Object value, String name, String source) throws IOException {
+        // json-simple parses every whole number as a Long
+        if (!(value instanceof Long)) {
+            throw new IOException(source + ": " + name + " must be a whole number");
+        }
+        long number = (Long) value;
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            throw new IOException(source + ": " + name + " is out of range");
+        }
+        return (int) number;
+    }
+
+    /** Gets the key a config file is cached under
+    @return The absolute, normalised path of the file
+    @param path The path of the config file
+    */
+    private static String key(String path) {
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    /** Gets the map filename
+    @return The map filename
+    */
+    public String getMap() {
+        return this.map;
+    }
+
+    /** Gets the number of lives the game starts with
+    @return The number of lives
+    */
+    public int getLives() {
+        return this.lives;
+    }
+
+    /** Gets the speed of the entities
+    @return The speed in pixels per tick
+    */
+    public int getSpeed() {
+        return this.speed;
+    }
+
+    /** Gets the length of the frightened mode
+    @return The length in seconds
+    */
+    public int getFrightenedLength() {
+        return this.frightenedLength;
+    }
+
+    /** Gets the length of each scatter and chase mode
+    @return A copy of the mode lengths in seconds
+    */
+    public int[] getModeLengths() {
+        return this.modeLengths.clone();
+    }
+
+    /** Gets the name of the ghost strategy bound to each map character
+    @return The unmodifiable bindings of cell ID to strategy name
+    */
+    public Map<Character, String> getGhosts() {
+        return this.ghosts;
+    }
+
+    /** Gets every cell ID a map may contain under this config
+    @return The default cell IDs followed by any other map characters ghosts are bound to
+    */
+    public String getCellIDs() {
+        StringBuilder cellIDs = new StringBuilder(MapLoader.DEFAULT_CELL_IDS);
+        for (char cellID : this.ghosts.keySet()) {
+            if (cellIDs.indexOf(String.valueOf(cellID)) == -1) {
+                cellIDs.append(cellID);
+            }
+        }
+        return cellIDs.toString();
+    }
+
+    /** Checks whether the given config binds the same ghost strategies as this one
+    @return True if both configs bind every map character to the same strategy
+    @param other The config to compare with
+    */
+    public boolean sameGhosts(GameConfig other) {
+        return other != null && this.ghosts.equals(other.ghosts);
+    }
+
+    /** Checks whether the given config uses the same map as this one
+    @return True if both configs name the same map file
+    @param other The config to compare with
+    */
+    public boolean sameMap(GameConfig other) {
+        return other != null && this.map.equals(other.map);
+    }
+}
@@ -0,0 +1,174 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** The Java Flight Recorder events emitted by the game.
+Every event is disabled by default, enable them with the waka.jfc settings file:
+java -XX:StartFlightRecording:settings=waka.jfc,filename=waka.jfr ...
+Fields are only filled in once shouldCommit has returned true, so disabled events cost nothing.
+*/
+public final class GameEvents {
+
+    /** The events are only ever used through the nested classes
+    */
+    private GameEvents() {
+    }
+
+    @Name("waka.LoadGame")
+    @Label("Load Game")
+    @Category({"Waka", "Game"})
+    @Description("Reading a map and creating its entities")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class LoadGame extends Event {
+
+        /** Stores the map filename
+        */
+        @Label("Map")
+        public String map;
+        /** Stores whether the map was in the compiled binary format
+        */
+        @Label("Compiled")
+        public boolean compiled;
+        /** Stores whether the map loaded successfully
+        */
+        @Label("Loaded")
+        public boolean loaded;
+        /** Stores the number of ghosts created
+        */
+        @Label("Ghosts")
+        public int ghosts;
+    }
+
+    @Name("waka.ResetGame")
+    @Label("Reset Game")
+    @Category({"Waka", "Game"})
+    @Description("Restarting the game once the win or lose screen has been shown")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class ResetGame extends Event {
+
+        /** Stores the map filename
+        */
+        @Label("Map")
+        public String map;
+        /** Stores whether the round that ended was won
+        */
+        @Label("Won")
+        public boolean won;
+        /** Stores the number of ticks the round that ended lasted
+        */
+        @Label("Ticks")
+        public int ticks;
+    }
+
+    @Name("waka.GhostTick")
+    @Label("Ghost Tick")
+    @Category({"Waka", "Ghost"})
+    @Description("A single ghost choosing and making its move")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class GhostTick extends Event {
+
+        /** Stores the cell ID of the ghost, which identifies its type
+        */
+        @Label("Ghost Type")
+        public char ghostType;
+        /** Stores the mode the ghosts were in at the end of the tick
+        */
+        @Label("Mode")
+        public String mode;
+        /** Stores the map filename
+        */
+        @Label("Map")
+        public String map;
+        /** Stores the game tick
+        */
+        @Label("Tick")
+        public int tick;
+    }
+
+    @Name("waka.TargetMove")
+    @Label("Ghost Target")
+    @Category({"Waka", "Ghost"})
+    @Description("A ghost working out the tile it is heading for")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class TargetMove extends Event {
+
+        /** Stores the cell ID of the ghost, which identifies its type
+        */
+        @Label("Ghost Type")
+        public char ghostType;
+        /** Stores whether the ghost was targeting its scatter corner or chasing
+        */
+        @Label("Mode")
+        public String mode;
+        /** Stores the x coordinate of the target
+        */
+        @Label("Target X")
+        public int targetX;
+        /** Stores the y coordinate of the target
+        */
+        @Label("Target Y")
+        public int targetY;
+    }
+
+    @Name("waka.PowerUpCollision")
+    @Label("Power Up Collision")
+    @Category({"Waka", "Player"})
+    @Description("The waka checking its tile for fruit, superfruit and soda cans")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class PowerUpCollision extends Event {
+
+        /** Stores the cell ID of the tile under the waka
+        */
+        @Label("Cell ID")
+        public char cellID;
+        /** Stores whether something was eaten
+        */
+        @Label("Eaten")
+        public boolean eaten;
+        /** Stores the mode the ghosts were in after the check
+        */
+        @Label("Mode")
+        public String mode;
+        /** Stores the number of fruit remaining
+        */
+        @Label("Fruits")
+        public int fruits;
+    }
+
+    @Name("waka.FrameRender")
+    @Label("Frame Render")
+    @Category({"Waka", "Game"})
+    @Description("Drawing the maze and entities for one frame")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class FrameRender extends Event {
+
+        /** Stores the map filename
+        */
+        @Label("Map")
+        public String map;
+        /** Stores the mode the ghosts were in
+        */
+        @Label("Mode")
+        public String mode;
+        /** Stores the game tick that was drawn
+        */
+        @Label("Tick")
+        public int tick;
+        /** Stores whether debug mode was on
+        */
+        @Label("Debug")
+        public boolean debug;
+    }
+}
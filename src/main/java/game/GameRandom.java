@@ -0,0 +1,51 @@
+package game;
+
+public class GameRandom {
+
+    /** Stores the current state of the generator, never zero
+    */
+    private long state;
+
+    /** Constructs a new generator
+    @param seed The seed of the generator
+    */
+    public GameRandom(long seed) {
+        setSeed(seed);
+    }
+
+    /** Restarts the generator from the given seed
+    @param seed The seed of the generator
+    */
+    public void setSeed(long seed) {
+        // Scramble the seed with splitmix64 so similar seeds give unrelated sequences
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        this.state = z == 0 ? 0x9E3779B97F4A7C15L : z;
+    }
+
+    /** Gets the next random long using xorshift64*
+    @return A random long
+    */
+    public long nextLong() {
+        long x = this.state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        this.state = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    /** Gets a random integer between 0 inclusive and the bound exclusive
+    @return A random integer in range
+    @param bound The upper bound, which must be positive
+    */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        // Use the high bits, which are the best mixed in xorshift64*
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+}
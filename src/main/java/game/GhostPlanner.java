@@ -0,0 +1,56 @@
+package game;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import ghost.*;
+
+public class GhostPlanner extends RecursiveAction {
+
+    /** The version of the serialized form of the task, which RecursiveAction makes Serializable
+    */
+    private static final long serialVersionUID = 1L;
+    /** The most ghosts planned by a single task before it is split in two
+    */
+    public static final int BATCH_SIZE = 32;
+
+    /** Stores the ghosts of the game, in the order they are ticked
+    */
+    private final List<Ghost> ghosts;
+    /** Stores the mode of the ghosts for the tick being planned
+    */
+    private final ModeSnapshot mode;
+    /** Stores the index of the first ghost planned by this task
+    */
+    private final int from;
+    /** Stores the index after the last ghost planned by this task
+    */
+    private final int to;
+
+    /** Constructs a task planning a range of the ghosts
+    @param ghosts The ghosts of the game
+    @param mode The mode of the ghosts for the tick being planned
+    @param from The index of the first ghost to plan
+    @param to The index after the last ghost to plan
+    */
+    public GhostPlanner(List<Ghost> ghosts, ModeSnapshot mode, int from, int to) {
+        this.ghosts = ghosts;
+        this.mode = mode;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Plans the ghosts in the range, splitting it across the pool while it is larger than a batch
+    */
+    protected void compute() {
+        if (this.to - this.from <= BATCH_SIZE) {
+            for (int i = this.from; i < this.to; i++) {
+                this.ghosts.get(i).plan(this.mode);
+            }
+            return;
+        }
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new GhostPlanner(this.ghosts, this.mode, this.from, middle),
+            new GhostPlanner(this.ghosts, this.mode, middle, this.to));
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import java.util.HashMap;
+import java.util.List;
+
+import ghost.*;
+
+public class GhostRegistry {
+
+    /** Stores an empty list of indices, shared by every type with no ghosts
+    */
+    private static final int[] NONE = new int[0];
+
+    /** Stores the index in the game's ghost list of every ghost of each type, indexed by cell ID
+    */
+    private final int[][] indices;
+    /** Stores the index of the first ghost following each strategy, keyed by the strategy's name
+    */
+    private final HashMap<String, Integer> firstByStrategy;
+
+    /** Constructs a registry of the ghosts, resolved once when the map is loaded
+    @param ghosts The ghosts of the game, in the order they are ticked
+    */
+    public GhostRegistry(List<Ghost> ghosts) {
+        int[] counts = new int[128];
+        for (Ghost ghost : ghosts) {
+            char type = ghost.getCellID();
+            if (type < counts.length) {
+                counts[type] += 1;
+            }
+        }
+        this.indices = new int[128][];
+        for (int type = 0; type < this.indices.length; type++) {
+            this.indices[type] = counts[type] == 0 ? NONE : new int[counts[type]];
+            counts[type] = 0;
+        }
+        for (int i = 0; i < ghosts.size(); i++) {
+            char type = ghosts.get(i).getCellID();
+            if (type < this.indices.length) {
+                this.indices[type][counts[type]] = i;
+                counts[type] += 1;
+            }
+        }
+        this.firstByStrategy = new HashMap<String, Integer>();
+        for (int i = ghosts.size() - 1; i >= 0; i--) {
+            this.firstByStrategy.put(ghosts.get(i).getStrategy().getName(), i);
+        }
+    }
+
+    /** Gets the index of every ghost of a type
+    @return The indices in the game's ghost list, shared and not to be modified
+    @param type The cell ID of the ghost type
+    */
+    public int[] getIndices(char type) {
+        return type < this.indices.length ? this.indices[type] : NONE;
+    }
+
+    /** Gets the index of the first ghost of a type
+    @return The index in the game's ghost list, or -1 if there are no ghosts of the type
+    @param type The cell ID of the ghost type
+    */
+    public int getFirst(char type) {
+        int[] ofType = getIndices(type);
+        return ofType.length == 0 ? -1 : ofType[0];
+    }
+
+    /** Gets the index of the first ghost following a strategy, whichever map character it is bound to
+    @return The index in the game's ghost list, or -1 if no ghost follows the strategy
+    @param strategy The name of the strategy
+    */
+    public int getFirst(String strategy) {
+        Integer first = this.firstByStrategy.get(strategy);
+        return first == null ? -1 : first;
+    }
+
+    /** Gets the number of ghosts of a type
+    @return The number of ghosts
+    @param type The cell ID of the ghost type
+    */
+    public int count(char type) {
+        return getIndices(type).length;
+    }
+}
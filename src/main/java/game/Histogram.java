@@ -0,0 +1,137 @@
+package game;
+
+public class Histogram {
+
+    /** The number of bits of each value kept exactly, giving percentiles to within 1 part in 64
+    */
+    public static final int PRECISION_BITS = 7;
+    /** The number of buckets below which every value has its own bucket
+    */
+    private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+    /** The number of buckets in each power of two above the exact range
+    */
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /** Stores the number of values recorded in each bucket
+    */
+    private final long[] counts;
+    /** Stores the number of values recorded
+    */
+    private long count;
+    /** Stores the sum of every value recorded, used for the mean
+    */
+    private long sum;
+    /** Stores the smallest value recorded
+    */
+    private long min;
+    /** Stores the largest value recorded
+    */
+    private long max;
+
+    /** Constructs an empty histogram covering every non negative long.
+    Buckets grow logarithmically in the style of HdrHistogram, so memory is fixed and recording never allocates.
+    */
+    public Histogram() {
+        this.counts = new long[bucketIndex(Long.MAX_VALUE) + 1];
+        reset();
+    }
+
+    /** Gets the bucket a value is counted in
+    @return The bucket index
+    @param value The non negative value
+    */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Keep the top PRECISION_BITS bits of the value, and count how many were dropped
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (PRECISION_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /** Gets the largest value counted in a bucket
+    @return The highest value that maps to the bucket
+    @param index The bucket index
+    */
+    private static long highestInBucket(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long sub = index - (long) shift * HALF_SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /** Records a value, clamping negative values to zero
+    @param value The value to record
+    */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts[bucketIndex(value)] += 1;
+        this.count += 1;
+        this.sum += value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    /** Gets the value below which the given percentage of recorded values fall
+    @return The value at the percentile, or 0 if nothing has been recorded
+    @param percentile The percentile, from 0 to 100
+    */
+    public long getValueAtPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return Math.min(highestInBucket(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /** Gets the number of values recorded
+    @return The number of values
+    */
+    public long getCount() {
+        return this.count;
+    }
+
+    /** Gets the mean of the values recorded
+    @return The mean, or 0 if nothing has been recorded
+    */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    /** Gets the smallest value recorded
+    @return The smallest value, or 0 if nothing has been recorded
+    */
+    public long getMin() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    /** Gets the largest value recorded
+    @return The largest value, or 0 if nothing has been recorded
+    */
+    public long getMax() {
+        return this.max;
+    }
+
+    /** Removes every recorded value
+    */
+    public void reset() {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = 0;
+        }
+        this.count = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+}
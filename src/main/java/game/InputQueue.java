@@ -0,0 +1,111 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class InputQueue {
+
+    /** The number of key presses held by default, far more than can be pressed between two ticks
+    */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /** Stores the key code of each queued key press, indexed by position modulo the capacity
+    */
+    private final int[] keyCodes;
+    /** Stores the time each queued key was pressed, in nanoseconds
+    */
+    private final long[] timestamps;
+    /** Stores the capacity minus one, used to wrap positions into slots
+    */
+    private final int mask;
+    /** Stores the position of the next key press to read, only written by the consumer
+    */
+    private final AtomicLong head;
+    /** Stores the position of the next key press to write, only written by the producer
+    */
+    private final AtomicLong tail;
+    /** Stores the producer's last view of the head, so it only reads the consumer's counter when the queue looks full
+    */
+    private long cachedHead;
+
+    /** Constructs an empty queue with the default capacity
+    */
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** Constructs an empty queue.
+    The queue is lock free for exactly one producer thread and one consumer thread.
+    @param capacity The most key presses held at once, rounded up to a power of two
+    */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.keyCodes = new int[size];
+        this.timestamps = new long[size];
+        this.mask = size - 1;
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.cachedHead = 0;
+    }
+
+    /** Adds a key press to the queue, called only from the producer thread
+    @return True if the key press was queued, false if the queue was full and it was dropped
+    @param keyCode The key code of the key pressed
+    @param timestamp The time the key was pressed, in nanoseconds
+    */
+    public boolean offer(int keyCode, long timestamp) {
+        long position = this.tail.get();
+        if (position - this.cachedHead > this.mask) {
+            this.cachedHead = this.head.get();
+            if (position - this.cachedHead > this.mask) {
+                return false;
+            }
+        }
+        int slot = (int) position & this.mask;
+        this.keyCodes[slot] = keyCode;
+        this.timestamps[slot] = timestamp;
+        // Publishes the slot to the consumer, ordered after the writes above
+        this.tail.lazySet(position + 1);
+        return true;
+    }
+
+    /** Removes the queued key presses in the order they were pressed, called only from the consumer thread
+    @return The number of key presses copied out
+    @param keyCodes The array the key codes are copied into
+    @param timestamps The array the times of the key presses are copied into
+    */
+    public int drain(int[] keyCodes, long[] timestamps) {
+        long position = this.head.get();
+        long end = Math.min(this.tail.get(), position + Math.min(keyCodes.length, timestamps.length));
+        int count = 0;
+        while (position < end) {
+            int slot = (int) position & this.mask;
+            keyCodes[count] = this.keyCodes[slot];
+            timestamps[count] = this.timestamps[slot];
+            count += 1;
+            position += 1;
+        }
+        // Hands the slots back to the producer, ordered after the reads above
+        this.head.lazySet(position);
+        return count;
+    }
+
+    /** Discards every queued key press, called only from the consumer thread
+    */
+    public void clear() {
+        this.head.lazySet(this.tail.get());
+    }
+
+    /** Checks whether any key presses are waiting
+    @return True if the queue is empty
+    */
+    public boolean isEmpty() {
+        return this.head.get() == this.tail.get();
+    }
+
+    /** Gets the most key presses the queue can hold
+    @return The capacity
+    */
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+}
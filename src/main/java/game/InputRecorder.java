@@ -0,0 +1,107 @@
+package game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+public class InputRecorder {
+
+    /** The magic number at the start of every recording, "WAKR"
+    */
+    public static final int MAGIC = 0x57414B52;
+    /** The version of the recording format
+    */
+    public static final int VERSION = 1;
+    /** The key code written to mark the end of the recording, which no key press uses
+    */
+    public static final int END = 0;
+
+    /** Stores the stream the recording is written to
+    */
+    private final DataOutputStream out;
+    /** Stores the tick of the last event written
+    */
+    private int lastTick;
+
+    /** Starts a recording, writing the settings the game was started with.
+    The recording is a header followed by events of a varint tick delta and a key code byte.
+    @param out The stream to write the recording to
+    @param setup The settings the game was started with
+    @throws IOException If the header could not be written
+    */
+    public InputRecorder(OutputStream out, BatchJob setup) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.lastTick = 0;
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        GameConfig config = setup.config;
+        this.out.writeUTF(config.getMap());
+        this.out.writeLong(setup.seed);
+        this.out.writeInt(config.getLives());
+        this.out.writeInt(config.getSpeed());
+        this.out.writeInt(config.getFrightenedLength());
+        int[] modeLengths = config.getModeLengths();
+        this.out.writeInt(modeLengths.length);
+        for (int length : modeLengths) {
+            this.out.writeInt(length);
+        }
+        Map<Character, String> ghosts = config.getGhosts();
+        this.out.writeInt(ghosts.size());
+        for (Map.Entry<Character, String> binding : ghosts.entrySet()) {
+            this.out.writeChar(binding.getKey());
+            this.out.writeUTF(binding.getValue());
+        }
+    }
+
+    /** Starts a recording of the given game to a file
+    @return The recorder
+    @param path The path of the file to write
+    @param game The game being recorded, which must not have started yet
+    @throws IOException If the file could not be created
+    */
+    public static InputRecorder start(String path, Game game) throws IOException {
+        BatchJob setup = new BatchJob(game.getConfig(), game.seed, Integer.MAX_VALUE);
+        return new InputRecorder(new FileOutputStream(path), setup);
+    }
+
+    /** Records a key press
+    @param tick The tick before which the key press was handled
+    @param keyCode The key code of the key pressed
+    @throws IOException If the event could not be written
+    */
+    public void record(int tick, int keyCode) throws IOException {
+        if (keyCode <= END || keyCode > 0xFF) {
+            // Only single byte key codes can be recorded, the rest do nothing in game anyway
+            return;
+        }
+        writeVarInt(tick - this.lastTick);
+        this.out.writeByte(keyCode);
+        this.lastTick = tick;
+    }
+
+    /** Ends the recording with the final tick and state hash of the game, and closes the stream
+    @param game The game being recorded
+    @throws IOException If the end of the recording could not be written
+    */
+    public void finish(Game game) throws IOException {
+        writeVarInt(game.tick - this.lastTick);
+        this.out.writeByte(END);
+        this.out.writeLong(game.stateHash());
+        this.out.close();
+    }
+
+    /** Writes an unsigned integer in as few bytes as possible, seven bits at a time
+    @param value The value to write
+    @throws IOException If the value could not be written
+    */
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            this.out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.out.writeByte(value);
+    }
+}
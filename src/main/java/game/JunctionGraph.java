@@ -0,0 +1,226 @@
+package game;
+
+public class JunctionGraph {
+
+    /** The bit set in a tile's exits when an entity can move up out of it
+    */
+    public static final int UP = 1;
+    /** The bit set in a tile's exits when an entity can move left out of it
+    */
+    public static final int LEFT = 2;
+    /** The bit set in a tile's exits when an entity can move down out of it
+    */
+    public static final int DOWN = 4;
+    /** The bit set in a tile's exits when an entity can move right out of it
+    */
+    public static final int RIGHT = 8;
+
+    /** The size of a tile in pixels
+    */
+    public static final int TILE_SIZE = 16;
+    /** The largest x coordinate an entity may move to, matching the bounds of Entity.checkCollision
+    */
+    public static final int MAX_X = 448;
+    /** The largest y coordinate an entity may move to, matching the bounds of Entity.checkCollision
+    */
+    public static final int MAX_Y = 576;
+
+    /** Stores the number of columns in the map
+    */
+    private final int width;
+    /** Stores the number of rows in the map
+    */
+    private final int height;
+    /** Stores the directions an entity lined up with each tile can move in, indexed by row * width + column.
+    Walls have no exits, so every tile with exits can be stood on.
+    */
+    private final byte[] exits;
+    /** Stores the number of tiles with more than two exits, where corridors meet
+    */
+    private final int junctions;
+
+    /** Builds the graph from the wall layout of a board, once when the map is loaded
+    @param board The board of the map
+    */
+    public JunctionGraph(Board board) {
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.exits = new byte[this.width * this.height];
+        int junctions = 0;
+        for (int row = 0; row < this.height; row++) {
+            for (int col = 0; col < this.width; col++) {
+                if (board.isWall(col, row)) {
+                    continue;
+                }
+                // Moving by any speed up to a tile reaches the neighbouring tile, so only its wall and the bounds matter
+                int tileExits = 0;
+                if (row > 0 && !board.isWall(col, row - 1)) {
+                    tileExits |= UP;
+                }
+                if (col > 0 && !board.isWall(col - 1, row)) {
+                    tileExits |= LEFT;
+                }
+                if ((row + 1) * TILE_SIZE <= MAX_Y && !board.isWall(col, row + 1)) {
+                    tileExits |= DOWN;
+                }
+                if ((col + 1) * TILE_SIZE <= MAX_X && !board.isWall(col + 1, row)) {
+                    tileExits |= RIGHT;
+                }
+                this.exits[row * this.width + col] = (byte) tileExits;
+                if (Integer.bitCount(tileExits) > 2) {
+                    junctions += 1;
+                }
+            }
+        }
+        this.junctions = junctions;
+    }
+
+    /** Gets the directions an entity lined up with a tile can move in
+    @return The exit bits, or 0 for walls and tiles outside the map
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public int getExits(int col, int row) {
+        if (col < 0 || col >= this.width || row < 0 || row >= this.height) {
+            return 0;
+        }
+        return this.exits[row * this.width + col];
+    }
+
+    /** Checks whether corridors meet at a tile, so an entity on it has a choice of more than one way forward
+    @return True if the tile has more than two exits
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public boolean isJunction(int col, int row) {
+        return Integer.bitCount(getExits(col, row)) > 2;
+    }
+
+    /** Gets the number of junctions in the map
+    @return The number of tiles with more than two exits
+    */
+    public int getJunctionCount() {
+        return this.junctions;
+    }
+
+    /** Gets the directions an entity at the given position can move in without colliding.
+    The result is exactly what Entity.checkCollision would report for each direction,
+    or -1 if the position is not one the graph can answer for.
+    @return The exit bits, or -1 if the collisions have to be checked
+    @param x The x coordinate of the entity in pixels
+    @param y The y coordinate of the entity in pixels
+    @param speed The speed of the entity, which the position must be a multiple of
+    */
+    public int getExitsAt(int x, int y, int speed) {
+        if (x < 0 || y < 0 || x % speed != 0 || y % speed != 0) {
+            return -1;
+        }
+        int col = x / TILE_SIZE;
+        int row = y / TILE_SIZE;
+        boolean alignedX = x % TILE_SIZE == 0;
+        boolean alignedY = y % TILE_SIZE == 0;
+        if (alignedX && alignedY) {
+            int tileExits = getExits(col, row);
+            return tileExits == 0 ? -1 : tileExits;
+        }
+        if (alignedY) {
+            // Between two tiles of a row, so the entity can always carry on along the row
+            // and can only leave it where both tiles open onto the next row
+            int left = getExits(col, row);
+            int right = getExits(col + 1, row);
+            if (left == 0 || right == 0) {
+                return -1;
+            }
+            return LEFT | (left & RIGHT) | (left & right & (UP | DOWN));
+        }
+        if (alignedX) {
+            // Between two tiles of a column
+            int top = getExits(col, row);
+            int bottom = getExits(col, row + 1);
+            if (top == 0 || bottom == 0) {
+                return -1;
+            }
+            return UP | (top & DOWN) | (top & bottom & (LEFT | RIGHT));
+        }
+        return -1;
+    }
+
+    /** Gets the only way forward for an entity in a corridor, where it has no decision to make.
+    Turning back is never counted as a way forward.
+    @return The key code of the only move that is not backwards, or 0 if the entity has a choice or is stuck
+    @param x The x coordinate of the entity in pixels
+    @param y The y coordinate of the entity in pixels
+    @param speed The speed of the entity
+    @param lastMove The key code of the entity's last move
+    */
+    public int getOnlyWayForward(int x, int y, int speed, int lastMove) {
+        int backwards = toBit(getOpposite(lastMove));
+        if (backwards == 0) {
+            return 0;
+        }
+        int available = getExitsAt(x, y, speed);
+        if (available == -1) {
+            return 0;
+        }
+        int forward = available & ~backwards;
+        if (Integer.bitCount(forward) != 1) {
+            return 0;
+        }
+        return toMoveCode(forward);
+    }
+
+    /** Gets the move in the opposite direction
+    @return The key code of the opposite move, or 0 if the move is not a direction
+    @param moveCode The key code of the move
+    */
+    public static int getOpposite(int moveCode) {
+        switch (moveCode) {
+            case 38:
+                return 40;
+            case 40:
+                return 38;
+            case 37:
+                return 39;
+            case 39:
+                return 37;
+            default:
+                return 0;
+        }
+    }
+
+    /** Converts a move to its exit bit
+    @return The exit bit, or 0 if the move is not a direction
+    @param moveCode The key code of the move
+    */
+    public static int toBit(int moveCode) {
+        switch (moveCode) {
+            case 38:
+                return UP;
+            case 37:
+                return LEFT;
+            case 40:
+                return DOWN;
+            case 39:
+                return RIGHT;
+            default:
+                return 0;
+        }
+    }
+
+    /** Converts a single exit bit to its move
+    @return The key code of the move
+    @param bit The exit bit
+    */
+    public static int toMoveCode(int bit) {
+        switch (bit) {
+            case UP:
+                return 38;
+            case LEFT:
+                return 37;
+            case DOWN:
+                return 40;
+            default:
+                return 39;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package game;
+
+import java.io.IOException;
+
+public class MapFormatException extends IOException {
+
+    /** The version of the serialized form of the exception
+    */
+    private static final long serialVersionUID = 1L;
+
+    /** Stores the line the error was found on, starting from 1
+    */
+    private final int line;
+    /** Stores the column the error was found on, starting from 1
+    */
+    private final int column;
+
+    /** Constructs a new map format exception
+    @param filename The path of the map file
+    @param line The line the error was found on, starting from 1
+    @param column The column the error was found on, starting from 1
+    @param message The description of the error
+    */
+    public MapFormatException(String filename, int line, int column, String message) {
+        super(filename + ":" + line + ":" + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    /** Gets the line the error was found on
+    @return The line, starting from 1
+    */
+    public int getLine() {
+        return this.line;
+    }
+
+    /** Gets the column the error was found on
+    @return The column, starting from 1
+    */
+    public int getColumn() {
+        return this.column;
+    }
+}
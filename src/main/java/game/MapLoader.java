@@ -0,0 +1,135 @@
+package game;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class MapLoader {
+
+    /** The cell IDs that may appear in a map unless told otherwise
+    */
+    public static final String DEFAULT_CELL_IDS = "012345678pgaciws";
+    /** The most bytes mapped into memory at once
+    */
+    public static final long CHUNK_SIZE = 1L << 30;
+    /** The most tiles a board can hold
+    */
+    public static final long MAX_TILES = Integer.MAX_VALUE - 8;
+
+    /** Stores whether each cell ID may appear in a map, indexed by the cell ID character
+    */
+    private final boolean[] allowed;
+
+    /** Constructs a map loader accepting the default cell IDs
+    */
+    public MapLoader() {
+        this(DEFAULT_CELL_IDS);
+    }
+
+    /** Constructs a map loader accepting the given cell IDs
+    @param cellIDs Every cell ID that may appear in a map
+    */
+    public MapLoader(CharSequence cellIDs) {
+        this.allowed = new boolean[128];
+        for (int i = 0; i < cellIDs.length(); i++) {
+            char cellID = cellIDs.charAt(i);
+            if (cellID < this.allowed.length) {
+                this.allowed[cellID] = true;
+            }
+        }
+    }
+
+    /** Loads a text map into a board.
+    The file is memory mapped and parsed byte by byte, so no objects are created per tile or per line.
+    The first pass validates the cell IDs and row widths, the second copies the tiles into the board.
+    Lines may end in either \n or \r\n, and a final line ending is optional.
+    @return The board of the map
+    @param filename The path of the map file
+    @throws MapFormatException If the map contains an unknown cell ID or rows of different widths
+    @throws IOException If the file could not be read
+    */
+    public Board load(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+
+            // First pass: find the width and height, validating every byte
+            int width = -1;
+            int height = 0;
+            int column = 0;
+            boolean carriageReturn = false;
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+                while (buffer.hasRemaining()) {
+                    int b = buffer.get() & 0xFF;
+                    if (carriageReturn && b != '\n') {
+                        throw new MapFormatException(filename, height + 1, column + 1, "Carriage return not followed by a new line");
+                    }
+                    carriageReturn = false;
+                    if (b == '\r') {
+                        carriageReturn = true;
+                    } else if (b == '\n') {
+                        width = endRow(filename, width, height, column);
+                        height += 1;
+                        column = 0;
+                    } else if (b < this.allowed.length && this.allowed[b]) {
+                        column += 1;
+                    } else {
+                        throw new MapFormatException(filename, height + 1, column + 1, "Unknown cell ID '" + (char) b + "'");
+                    }
+                }
+            }
+            if (carriageReturn) {
+                throw new MapFormatException(filename, height + 1, column + 1, "Carriage return not followed by a new line");
+            }
+            // The last row does not need a line ending
+            if (column > 0) {
+                width = endRow(filename, width, height, column);
+                height += 1;
+            }
+            if (height == 0) {
+                throw new MapFormatException(filename, 1, 1, "Map is empty");
+            }
+            if ((long) width * height > MAX_TILES) {
+                throw new MapFormatException(filename, height, 1, "Map of " + width + "x" + height + " is too large");
+            }
+
+            // Second pass: copy the cell IDs into the board, skipping the line endings
+            byte[] tiles = new byte[width * height];
+            int index = 0;
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b != '\r' && b != '\n') {
+                        tiles[index++] = b;
+                    }
+                }
+            }
+            return new Board(width, height, tiles);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Checks a completed row against the width of the rows before it
+    @return The width of the map
+    @param filename The path of the map file
+    @param width The width of the rows so far, or -1 if this is the first row
+    @param row The index of the row, starting from 0
+    @param length The number of tiles in the row
+    @throws MapFormatException If the row is empty or does not match the width of the rows before it
+    */
+    private static int endRow(String filename, int width, int row, int length) throws MapFormatException {
+        if (length == 0) {
+            throw new MapFormatException(filename, row + 1, 1, "Empty row");
+        }
+        if (width != -1 && length != width) {
+            throw new MapFormatException(filename, row + 1, Math.min(length, width) + 1,
+                "Row has " + length + " tiles, expected " + width);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,301 @@
+package game;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class Metrics {
+
+    /** The phase covering a whole simulation tick
+    */
+    public static final int TICK = 0;
+    /** The phase covering the waka's power up and ghost collision checks
+    */
+    public static final int COLLISION = 1;
+    /** The phase covering every ghost choosing and making its move
+    */
+    public static final int GHOST_AI = 2;
+    /** The phase covering drawing the maze and entities
+    */
+    public static final int RENDER = 3;
+    /** The phase covering the time between the start of one frame and the next
+    */
+    public static final int FRAME = 4;
+    /** The phase covering the time from a key being pressed to the tick handling it
+    */
+    public static final int INPUT = 5;
+    /** The name of each phase, used in the overlay and the exported lines
+    */
+    public static final String[] PHASE_NAMES = {"tick", "collision", "ghostAI", "render", "frame", "input"};
+    /** How often snapshots are exported by default, in nanoseconds
+    */
+    public static final long DEFAULT_EXPORT_INTERVAL = 10000000000L;
+
+    /** Stores the timings of each phase in nanoseconds, since the window started
+    */
+    private final Histogram[] phases;
+    /** Stores the frame rate the app asks for
+    */
+    private final int targetFrameRate;
+    /** Stores the thread bean used to count allocated bytes, or null if the JVM cannot count them
+    */
+    private final com.sun.management.ThreadMXBean allocations;
+
+    /** Stores the time the current window started
+    */
+    private long windowStart;
+    /** Stores the time the last frame started, or 0 before the first frame
+    */
+    private long lastFrame;
+    /** Stores the number of frames in the current window
+    */
+    private int frames;
+    /** Stores the bytes allocated by the app thread in the current window
+    */
+    private long allocatedBytes;
+    /** Stores the bytes the app thread had allocated when last sampled
+    */
+    private long lastAllocated;
+    /** Stores the number of garbage collections when the window started
+    */
+    private long gcCountAtStart;
+
+    /** Stores the writer snapshots are exported to, or null if they are not exported
+    */
+    private Writer export;
+    /** Stores how often snapshots are exported, in nanoseconds
+    */
+    private long exportInterval;
+
+    /** Constructs a new set of metrics
+    @param targetFrameRate The frame rate the app asks for
+    */
+    public Metrics(int targetFrameRate) {
+        this.targetFrameRate = targetFrameRate;
+        this.phases = new Histogram[PHASE_NAMES.length];
+        for (int i = 0; i < this.phases.length; i++) {
+            this.phases[i] = new Histogram();
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            this.allocations = (com.sun.management.ThreadMXBean) threads;
+            this.allocations.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.allocations = null;
+        }
+        this.exportInterval = DEFAULT_EXPORT_INTERVAL;
+        this.export = null;
+        this.lastFrame = 0;
+        this.lastAllocated = getThreadAllocatedBytes();
+        startWindow(System.nanoTime());
+    }
+
+    /** Starts a new window, clearing every histogram and counter
+    @param now The current time in nanoseconds
+    */
+    private void startWindow(long now) {
+        for (Histogram phase : this.phases) {
+            phase.reset();
+        }
+        this.windowStart = now;
+        this.frames = 0;
+        this.allocatedBytes = 0;
+        this.gcCountAtStart = countCollections();
+    }
+
+    /** Gets the total bytes allocated by the current thread
+    @return The allocated bytes, or 0 if the JVM cannot count them
+    */
+    private long getThreadAllocatedBytes() {
+        if (this.allocations == null) {
+            return 0;
+        }
+        return this.allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Gets the number of garbage collections run so far by every collector
+    @return The number of collections
+    */
+    private static long countCollections() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /** Starts timing a phase
+    @return The current time in nanoseconds, to be passed to record
+    */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /** Records the time taken by a phase
+    @param phase The phase, one of TICK, COLLISION, GHOST_AI, RENDER or INPUT
+    @param startNanos The time returned by start when the phase began
+    */
+    public void record(int phase, long startNanos) {
+        this.phases[phase].record(System.nanoTime() - startNanos);
+    }
+
+    /** Marks the start of a frame, recording the time since the last one and the bytes allocated during it.
+    Exports a snapshot and starts a new window once the export interval has passed.
+    */
+    public void frame() {
+        long now = System.nanoTime();
+        if (this.lastFrame != 0) {
+            this.phases[FRAME].record(now - this.lastFrame);
+        }
+        this.lastFrame = now;
+        this.frames += 1;
+        long allocated = getThreadAllocatedBytes();
+        this.allocatedBytes += allocated - this.lastAllocated;
+        this.lastAllocated = allocated;
+
+        if (now - this.windowStart >= this.exportInterval) {
+            if (this.export != null) {
+                exportSnapshot(now);
+            }
+            startWindow(now);
+        }
+    }
+
+    /** Gets the timings of a phase in the current window
+    @return The histogram of the phase in nanoseconds
+    @param phase The phase
+    */
+    public Histogram getPhase(int phase) {
+        return this.phases[phase];
+    }
+
+    /** Gets the frame rate actually achieved in the current window
+    @return The frames per second
+    */
+    public double getFrameRate() {
+        long elapsed = System.nanoTime() - this.windowStart;
+        return elapsed <= 0 ? 0 : this.frames * 1e9 / elapsed;
+    }
+
+    /** Gets the frame rate the app asks for
+    @return The target frames per second
+    */
+    public int getTargetFrameRate() {
+        return this.targetFrameRate;
+    }
+
+    /** Gets the bytes allocated by the app thread in the current window
+    @return The allocated bytes, or 0 if the JVM cannot count them
+    */
+    public long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    /** Gets the number of garbage collections in the current window
+    @return The number of collections
+    */
+    public long getGcCount() {
+        return countCollections() - this.gcCountAtStart;
+    }
+
+    /** Starts appending a snapshot to a file at a regular interval
+    @param path The path of the file
+    @param intervalNanos How often to export, in nanoseconds, which is also the length of each window
+    @throws IOException If the file could not be opened
+    */
+    public void exportTo(String path, long intervalNanos) throws IOException {
+        this.export = new FileWriter(path, true);
+        this.exportInterval = Math.max(1, intervalNanos);
+    }
+
+    /** Describes a phase in the current window in the export line format
+    @return The phase as space separated key=value pairs, with timings in nanoseconds
+    @param phase The phase
+    */
+    public String describe(int phase) {
+        Histogram histogram = this.phases[phase];
+        return PHASE_NAMES[phase]
+            + " count=" + histogram.getCount()
+            + " mean=" + (long) histogram.getMean()
+            + " p50=" + histogram.getValueAtPercentile(50)
+            + " p90=" + histogram.getValueAtPercentile(90)
+            + " p99=" + histogram.getValueAtPercentile(99)
+            + " p999=" + histogram.getValueAtPercentile(99.9)
+            + " max=" + histogram.getMax();
+    }
+
+    /** Describes the frame rate and allocations of the current window in the export line format
+    @return The summary as space separated key=value pairs
+    */
+    public String describeFrames() {
+        return "frames fps=" + Math.round(getFrameRate() * 10) / 10.0
+            + " target=" + this.targetFrameRate
+            + " allocatedBytes=" + this.allocatedBytes
+            + " gcCount=" + getGcCount();
+    }
+
+    /** Appends a snapshot of the current window to the export file.
+    Each line is the wall clock time in milliseconds followed by a description of one phase.
+    @param now The current time in nanoseconds
+    */
+    private void exportSnapshot(long now) {
+        long timestamp = System.currentTimeMillis();
+        try {
+            for (int phase = 0; phase < this.phases.length; phase++) {
+                this.export.write(timestamp + " " + describe(phase) + "\n");
+            }
+            this.export.write(timestamp + " " + describeFrames() + "\n");
+            this.export.flush();
+        } catch (IOException ioe) {
+            // Stop exporting rather than interrupting the game
+            ioe.printStackTrace();
+            close();
+        }
+    }
+
+    /** Draws the current window as an overlay in the top left corner of the screen
+    @param app Instance of the app
+    */
+    public void draw(App app) {
+        app.textSize(8);
+        app.fill(255, 255, 255);
+        int y = 12;
+        for (int phase = 0; phase < this.phases.length; phase++) {
+            Histogram histogram = this.phases[phase];
+            app.text(PHASE_NAMES[phase]
+                + " p50 " + micros(histogram.getValueAtPercentile(50))
+                + " p99 " + micros(histogram.getValueAtPercentile(99))
+                + " max " + micros(histogram.getMax()), 4, y);
+            y += 10;
+        }
+        app.text("fps " + Math.round(getFrameRate()) + "/" + this.targetFrameRate
+            + " alloc " + this.allocatedBytes / 1024 + "KB gc " + getGcCount(), 4, y);
+        app.textSize(16);
+    }
+
+    /** Formats a time in nanoseconds as microseconds
+    @return The time in microseconds, followed by the unit
+    @param nanos The time in nanoseconds
+    */
+    private static String micros(long nanos) {
+        return (nanos / 1000) + "us";
+    }
+
+    /** Stops exporting snapshots, closing the export file
+    */
+    public void close() {
+        if (this.export == null) {
+            return;
+        }
+        try {
+            this.export.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        this.export = null;
+    }
+}
@@ -0,0 +1,131 @@
+package game;
+
+public class ModeScheduler {
+
+    /** Stores the length of each scatter and chase mode in ticks
+    */
+    private final int[] modeTicks;
+    /** Stores the number of ticks the ghosts stay frightened for
+    */
+    private final int frightenedTicks;
+
+    /** Stores the index of the current mode
+    */
+    private int modeCursor;
+    /** Stores whether the ghosts are scattering
+    */
+    private boolean scatter;
+    /** Stores whether the ghosts are frightened
+    */
+    private boolean frightened;
+    /** Stores whether the ghosts are invisible from a soda can
+    */
+    private boolean invisible;
+    /** Stores the tick at which the current mode ends
+    */
+    private int nextTransition;
+    /** Stores the tick at which the ghosts stop being frightened
+    */
+    private int frightenedEnd;
+    /** Stores the mode as the ghosts see it, replaced whenever it changes
+    */
+    private ModeSnapshot snapshot;
+
+    /** Constructs a scheduler starting in the first scatter mode at tick 0
+    @param modeLengths The length of each scatter and chase mode in seconds
+    @param frightenedLength The length of the frightened mode in seconds
+    */
+    public ModeScheduler(int[] modeLengths, int frightenedLength) {
+        this.modeTicks = new int[modeLengths.length];
+        for (int i = 0; i < modeLengths.length; i++) {
+            this.modeTicks[i] = modeLengths[i] * Simulation.TICKS_PER_SECOND;
+        }
+        // Frightened mode ends once more than frightenedLength whole seconds have passed
+        this.frightenedTicks = (frightenedLength + 1) * Simulation.TICKS_PER_SECOND;
+        this.modeCursor = 0;
+        this.scatter = true;
+        this.frightened = false;
+        this.invisible = false;
+        this.nextTransition = this.modeTicks.length > 1 ? this.modeTicks[0] : Integer.MAX_VALUE;
+        this.frightenedEnd = 0;
+        this.snapshot = createSnapshot();
+    }
+
+    /** Creates a snapshot of the current mode
+    @return The snapshot
+    */
+    private ModeSnapshot createSnapshot() {
+        return new ModeSnapshot(this.scatter, this.frightened, this.invisible, this.modeCursor);
+    }
+
+    /** Advances the mode to the given tick, called once at the start of every tick before the ghosts move.
+    The scatter and chase clock keeps running while the ghosts are frightened, but a mode only ends once they are not.
+    @param tick The tick about to be simulated
+    */
+    public void advance(int tick) {
+        boolean changed = false;
+        if (this.frightened && tick >= this.frightenedEnd) {
+            this.frightened = false;
+            this.invisible = false;
+            changed = true;
+        }
+        if (!this.frightened && tick >= this.nextTransition) {
+            this.modeCursor += 1;
+            if (this.modeCursor == this.modeTicks.length) {
+                // Start again from the first scatter mode once every mode has been used
+                this.modeCursor = 0;
+                this.scatter = true;
+            } else {
+                this.scatter = !this.scatter;
+            }
+            this.nextTransition = tick + this.modeTicks[this.modeCursor];
+            changed = true;
+        }
+        if (changed) {
+            this.snapshot = createSnapshot();
+        }
+    }
+
+    /** Frightens the ghosts, starting the frightened timer again if they already are
+    @param tick The tick the power up was eaten on
+    @param invisible Whether the ghosts also turn invisible, as they do for a soda can
+    */
+    public void frighten(int tick, boolean invisible) {
+        this.frightened = true;
+        this.invisible = this.invisible || invisible;
+        this.frightenedEnd = tick + this.frightenedTicks;
+        this.snapshot = createSnapshot();
+    }
+
+    /** Shows a mode decided elsewhere, such as by a game server, leaving the timers untouched
+    @param mode The mode to show
+    */
+    public void apply(ModeSnapshot mode) {
+        this.scatter = mode.scatter;
+        this.frightened = mode.frightened;
+        this.invisible = mode.invisible;
+        this.modeCursor = mode.modeCursor;
+        this.snapshot = mode;
+    }
+
+    /** Gets the current mode
+    @return The immutable snapshot of the mode
+    */
+    public ModeSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /** Gets the tick at which the current scatter or chase mode ends
+    @return The tick of the next transition
+    */
+    public int getNextTransition() {
+        return this.nextTransition;
+    }
+
+    /** Gets the tick at which the ghosts stop being frightened
+    @return The tick, which is only meaningful while the ghosts are frightened
+    */
+    public int getFrightenedEnd() {
+        return this.frightenedEnd;
+    }
+}
@@ -0,0 +1,30 @@
+package game;
+
+public final class ModeSnapshot {
+
+    /** Stores whether the ghosts are heading for their corners rather than chasing
+    */
+    public final boolean scatter;
+    /** Stores whether the ghosts are frightened
+    */
+    public final boolean frightened;
+    /** Stores whether the frightened ghosts are also invisible from a soda can
+    */
+    public final boolean invisible;
+    /** Stores the index of the current scatter or chase mode in the mode lengths
+    */
+    public final int modeCursor;
+
+    /** Constructs an immutable view of the ghosts' mode
+    @param scatter Whether the ghosts are scattering
+    @param frightened Whether the ghosts are frightened
+    @param invisible Whether the ghosts are invisible
+    @param modeCursor The index of the current mode
+    */
+    public ModeSnapshot(boolean scatter, boolean frightened, boolean invisible, int modeCursor) {
+        this.scatter = scatter;
+        this.frightened = frightened;
+        this.invisible = invisible;
+        this.modeCursor = modeCursor;
+    }
+}
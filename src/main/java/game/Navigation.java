@@ -0,0 +1,291 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class Navigation {
+
+    /** The distance stored for tiles that cannot be reached from the target
+    */
+    public static final short UNREACHABLE = Short.MAX_VALUE;
+    /** The most tiles a map can have for navigation data to be built, larger maps fall back to straight line distances
+    */
+    public static final int MAX_TILES = 1 << 20;
+    /** The most distance fields kept in the cache for moving targets
+    */
+    public static final int MAX_CACHED_FIELDS = 1024;
+    /** The most distances kept across all of the cached fields, so large maps cache fewer fields
+    */
+    public static final int MAX_CACHED_DISTANCES = 16 << 20;
+    /** The most distance fields pinned for the lifetime of the map, further targets use the cache
+    */
+    public static final int MAX_PINNED_FIELDS = 8;
+    /** The size of a tile in pixels
+    */
+    public static final int TILE_SIZE = 16;
+
+    /** Stores the number of columns in the map
+    */
+    protected final int width;
+    /** Stores the number of rows in the map
+    */
+    protected final int height;
+    /** Stores whether each tile can be walked on, indexed by row * width + column
+    */
+    protected final boolean[] walkable;
+
+    /** Stores the target tiles whose distance fields are kept for the lifetime of the map
+    */
+    protected int[] pinnedTiles;
+    /** Stores the distance fields of the pinned target tiles
+    */
+    protected short[][] pinnedFields;
+
+    /** Stores the field held in each cache slot, or null if the slot is empty.
+    Slots are replaced whole, so ghosts planning on different threads never see a tile paired with another tile's field.
+    */
+    protected final AtomicReferenceArray<CachedField> cachedFields;
+    /** Stores the breadth first search queue of each thread computing fields, so a cache miss only allocates the field
+    */
+    private final ThreadLocal<int[]> queues;
+
+    /** A distance field in the cache together with the target tile it leads to
+    */
+    protected static final class CachedField {
+
+        /** Stores the target tile of the field
+        */
+        final int tile;
+        /** Stores the distance field towards the tile
+        */
+        final short[] field;
+
+        /** Constructs a cache entry
+        @param tile The target tile of the field
+        @param field The distance field towards the tile
+        */
+        CachedField(int tile, short[] field) {
+            this.tile = tile;
+            this.field = field;
+        }
+    }
+
+    /** Constructs the navigation data from the wall layout of a board
+    @param board The board of the map
+    @throws IllegalArgumentException If the board has more than MAX_TILES tiles
+    */
+    public Navigation(Board board) {
+        int rows = board.getHeight();
+        int cols = board.getWidth();
+        if (!isSupported(cols, rows)) {
+            throw new IllegalArgumentException("Map of " + cols + "x" + rows + " is too large for navigation data");
+        }
+        this.width = cols;
+        this.height = rows;
+
+        int tiles = cols * rows;
+        this.walkable = new boolean[tiles];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                this.walkable[row * cols + col] = !board.isWall(col, row);
+            }
+        }
+
+        this.pinnedTiles = new int[0];
+        this.pinnedFields = new short[0][];
+        int slots = Math.min(Math.min(tiles, MAX_CACHED_FIELDS), MAX_CACHED_DISTANCES / Math.max(1, tiles));
+        this.cachedFields = new AtomicReferenceArray<CachedField>(Math.max(1, slots));
+        this.queues = new ThreadLocal<int[]>() {
+            protected int[] initialValue() {
+                return new int[tiles];
+            }
+        };
+    }
+
+    /** Checks whether navigation data can be built for a map of the given size
+    @return True if the map has at most MAX_TILES tiles
+    @param width The number of columns in the map
+    @param height The number of rows in the map
+    */
+    public static boolean isSupported(int width, int height) {
+        return (long) width * height <= MAX_TILES;
+    }
+
+    /** Computes the walking distance from every tile to the target tile
+    @return The distance field, indexed by row * width + column
+    @param target The walkable target tile
+    */
+    private short[] computeField(int target) {
+        short[] field = new short[this.walkable.length];
+        // Each thread has its own queue, so fields can be computed on several threads at once
+        int[] queue = this.queues.get();
+        for (int i = 0; i < field.length; i++) {
+            field[i] = UNREACHABLE;
+        }
+        int head = 0;
+        int tail = 0;
+        field[target] = 0;
+        queue[tail++] = target;
+        while (head < tail) {
+            int tile = queue[head++];
+            int col = tile % this.width;
+            int row = tile / this.width;
+            // Distances saturate rather than wrapping on very large maps
+            short next = (short) Math.min(field[tile] + 1, UNREACHABLE - 1);
+            if (row > 0 && this.walkable[tile - this.width] && field[tile - this.width] == UNREACHABLE) {
+                field[tile - this.width] = next;
+                queue[tail++] = tile - this.width;
+            }
+            if (col > 0 && this.walkable[tile - 1] && field[tile - 1] == UNREACHABLE) {
+                field[tile - 1] = next;
+                queue[tail++] = tile - 1;
+            }
+            if (row < this.height - 1 && this.walkable[tile + this.width] && field[tile + this.width] == UNREACHABLE) {
+                field[tile + this.width] = next;
+                queue[tail++] = tile + this.width;
+            }
+            if (col < this.width - 1 && this.walkable[tile + 1] && field[tile + 1] == UNREACHABLE) {
+                field[tile + 1] = next;
+                queue[tail++] = tile + 1;
+            }
+        }
+        return field;
+    }
+
+    /** Gets the walkable tile used as the target for the given pixel coordinates.
+    Coordinates outside the map are clamped to its edge, and walls resolve to the closest walkable tile.
+    @return The target tile, or -1 if the map has no walkable tiles
+    @param x The x coordinate of the target in pixels
+    @param y The y coordinate of the target in pixels
+    */
+    public int getTargetTile(int x, int y) {
+        if (this.walkable.length == 0) {
+            return -1;
+        }
+        int col = Math.max(0, Math.min(this.width - 1, Math.floorDiv(x + TILE_SIZE / 2, TILE_SIZE)));
+        int row = Math.max(0, Math.min(this.height - 1, Math.floorDiv(y + TILE_SIZE / 2, TILE_SIZE)));
+        // Searches rings of growing distance, taking the first walkable tile in row major order,
+        // so ties go to the same tile every time
+        int maxDistance = this.width + this.height - 2;
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            int lastRow = Math.min(this.height - 1, row + distance);
+            for (int r = Math.max(0, row - distance); r <= lastRow; r++) {
+                int offset = distance - Math.abs(r - row);
+                if (col - offset >= 0 && this.walkable[r * this.width + col - offset]) {
+                    return r * this.width + col - offset;
+                }
+                if (offset > 0 && col + offset < this.width && this.walkable[r * this.width + col + offset]) {
+                    return r * this.width + col + offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Keeps the distance field for the given pixel coordinates for the lifetime of the map.
+    Once MAX_PINNED_FIELDS fields are pinned, further targets are left to the cache.
+    @param x The x coordinate of the target in pixels
+    @param y The y coordinate of the target in pixels
+    */
+    public void pin(int x, int y) {
+        int target = getTargetTile(x, y);
+        if (target == -1 || this.pinnedTiles.length >= MAX_PINNED_FIELDS) {
+            return;
+        }
+        for (int tile : this.pinnedTiles) {
+            if (tile == target) {
+                return;
+            }
+        }
+        pin(target, computeField(target));
+    }
+
+    /** Keeps a distance field that was computed ahead of time for the lifetime of the map, unless MAX_PINNED_FIELDS are already kept
+    @param target The walkable target tile
+    @param field The distance field towards the target, indexed by row * width + column
+    */
+    public void pin(int target, short[] field) {
+        if (field.length != this.walkable.length) {
+            throw new IllegalArgumentException("Distance field does not match the map size");
+        }
+        for (int tile : this.pinnedTiles) {
+            if (tile == target) {
+                return;
+            }
+        }
+        int count = this.pinnedTiles.length;
+        if (count >= MAX_PINNED_FIELDS) {
+            return;
+        }
+        int[] tiles = new int[count + 1];
+        short[][] fields = new short[count + 1][];
+        System.arraycopy(this.pinnedTiles, 0, tiles, 0, count);
+        System.arraycopy(this.pinnedFields, 0, fields, 0, count);
+        tiles[count] = target;
+        fields[count] = field;
+        this.pinnedTiles = tiles;
+        this.pinnedFields = fields;
+    }
+
+    /** Gets the distance field towards the given target tile, computing and caching it if needed.
+    Safe to call from several threads once the map is loaded; two threads missing the same tile may both compute it,
+    but the fields are identical so either can be kept.
+    @return The distance field, indexed by row * width + column
+    @param target The walkable target tile
+    */
+    public short[] getField(int target) {
+        int[] pinnedTiles = this.pinnedTiles;
+        short[][] pinnedFields = this.pinnedFields;
+        for (int i = 0; i < pinnedTiles.length; i++) {
+            if (pinnedTiles[i] == target) {
+                return pinnedFields[i];
+            }
+        }
+        int slot = target % this.cachedFields.length();
+        CachedField cached = this.cachedFields.get(slot);
+        if (cached == null || cached.tile != target) {
+            cached = new CachedField(target, computeField(target));
+            this.cachedFields.set(slot, cached);
+        }
+        return cached.field;
+    }
+
+    /** Gets the walking distance to the target from the tile next to the given position in the given direction
+    @return The number of tiles to walk, or UNREACHABLE if the neighbouring tile is a wall or cut off
+    @param field The distance field of the target
+    @param x The x coordinate of the entity in pixels
+    @param y The y coordinate of the entity in pixels
+    @param moveCode The direction of the neighbouring tile
+    */
+    public short getDistance(short[] field, int x, int y, int moveCode) {
+        // Uses the tile under the centre of the entity
+        int col = Math.floorDiv(x + TILE_SIZE / 2, TILE_SIZE);
+        int row = Math.floorDiv(y + TILE_SIZE / 2, TILE_SIZE);
+        if (moveCode == 38) {
+            row -= 1;
+        } else if (moveCode == 37) {
+            col -= 1;
+        } else if (moveCode == 40) {
+            row += 1;
+        } else if (moveCode == 39) {
+            col += 1;
+        }
+        if (col < 0 || col >= this.width || row < 0 || row >= this.height) {
+            return UNREACHABLE;
+        }
+        return field[row * this.width + col];
+    }
+
+    /** Gets the number of columns in the map
+    @return The number of columns
+    */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /** Gets the number of rows in the map
+    @return The number of rows
+    */
+    public int getHeight() {
+        return this.height;
+    }
+}
@@ -0,0 +1,174 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Replay {
+
+    /** Stores the settings the recorded game was started with
+    */
+    public final BatchJob setup;
+    /** Stores the tick of every recorded key press
+    */
+    private int[] ticks;
+    /** Stores the key code of every recorded key press
+    */
+    private int[] keyCodes;
+    /** Stores the number of recorded key presses
+    */
+    private int count;
+    /** Stores the tick the recorded game ended on, or the tick after the last key press if the recording was cut off
+    */
+    public final int finalTick;
+    /** Stores the state hash the recorded game ended with, or 0 if the recording was cut off
+    */
+    public final long finalHash;
+    /** Stores whether the recording reached its end marker
+    */
+    public final boolean complete;
+
+    /** Reads a recording written by an InputRecorder.
+    A recording cut off before its end marker, such as by a crash, is read up to its last whole key press.
+    @param in The stream to read the recording from
+    @throws IOException If the recording could not be read or is not valid
+    */
+    public Replay(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not a waka recording");
+        }
+        int version = data.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported recording version " + version);
+        }
+        String map = data.readUTF();
+        long seed = data.readLong();
+        int lives = data.readInt();
+        int speed = data.readInt();
+        int frightenedLength = data.readInt();
+        int[] modeLengths = new int[data.readInt()];
+        for (int i = 0; i < modeLengths.length; i++) {
+            modeLengths[i] = data.readInt();
+        }
+        Map<Character, String> ghosts = new LinkedHashMap<Character, String>();
+        int bindings = data.readInt();
+        for (int i = 0; i < bindings; i++) {
+            char cellID = data.readChar();
+            ghosts.put(cellID, data.readUTF());
+        }
+
+        // Read the key presses up to the end marker
+        this.ticks = new int[64];
+        this.keyCodes = new int[64];
+        this.count = 0;
+        int tick = 0;
+        int endTick = -1;
+        long endHash = 0;
+        try {
+            while (true) {
+                int delta = readVarInt(data);
+                int keyCode = data.readUnsignedByte();
+                if (keyCode == InputRecorder.END) {
+                    endHash = data.readLong();
+                    endTick = tick + delta;
+                    break;
+                }
+                if (this.count == this.ticks.length) {
+                    this.ticks = Arrays.copyOf(this.ticks, this.count * 2);
+                    this.keyCodes = Arrays.copyOf(this.keyCodes, this.count * 2);
+                }
+                tick += delta;
+                this.ticks[this.count] = tick;
+                this.keyCodes[this.count] = keyCode;
+                this.count += 1;
+            }
+        } catch (EOFException eofe) {
+            // Cut off part way through a record, so only the whole ones before it are kept
+        }
+        data.close();
+        this.complete = endTick != -1;
+        // A cut off recording plays through the tick of its last key press
+        this.finalTick = this.complete ? endTick : (this.count == 0 ? 0 : tick + 1);
+        this.finalHash = endHash;
+        try {
+            this.setup = new BatchJob(new GameConfig(map, lives, speed, frightenedLength, modeLengths, ghosts), seed, this.finalTick);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Recording has invalid settings: " + iae.getMessage(), iae);
+        }
+    }
+
+    /** Reads a recording from a file
+    @return The replay
+    @param path The path of the recording
+    @throws IOException If the recording could not be read or is not valid
+    */
+    public static Replay load(String path) throws IOException {
+        return new Replay(new FileInputStream(path));
+    }
+
+    /** Re-runs the recorded game headless as fast as possible, feeding in each key press on its tick
+    @return The game in its final state
+    @throws IOException If the recorded map could not be read
+    */
+    public Game run() throws IOException {
+        Game game = BatchRunner.createGame(this.setup, Game.readBoard(this.setup.config.getMap(), this.setup.config.getCellIDs()));
+        Simulation simulation = new Simulation(game);
+        int next = 0;
+        while (game.tick < this.finalTick) {
+            while (next < this.count && this.ticks[next] == game.tick) {
+                game.handleInput(this.keyCodes[next]);
+                next += 1;
+            }
+            if (!simulation.step()) {
+                break;
+            }
+        }
+        return game;
+    }
+
+    /** Re-runs the recorded game and checks it ends in the same state as the recording
+    @return True if the replayed game ends on the same tick with the same state hash, always false for a cut off recording
+    @throws IOException If the recorded map could not be read
+    */
+    public boolean verify() throws IOException {
+        if (!this.complete) {
+            return false;
+        }
+        Game game = run();
+        return game.tick == this.finalTick && game.stateHash() == this.finalHash;
+    }
+
+    /** Gets the number of recorded key presses
+    @return The number of key presses
+    */
+    public int getInputCount() {
+        return this.count;
+    }
+
+    /** Reads an unsigned integer written seven bits at a time
+    @return The value read
+    @param in The stream to read from
+    @throws IOException If the value could not be read
+    */
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 28) {
+                throw new IOException("Malformed recording");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,183 @@
+package game;
+
+import java.util.concurrent.ForkJoinPool;
+
+import ghost.*;
+import waka.*;
+
+public class Simulation {
+
+    /** The number of ticks simulated for every second of game time
+    */
+    public static final int TICKS_PER_SECOND = 60;
+    /** The length of a single tick in nanoseconds
+    */
+    public static final long NANOS_PER_TICK = 1000000000L / TICKS_PER_SECOND;
+    /** The most ticks advance will run at once, so a long stall does not cause a burst of catch up ticks
+    */
+    public static final int MAX_CATCH_UP_TICKS = 5;
+    /** The fewest ghosts worth planning in parallel, below which handing the work to the pool costs more than it saves
+    */
+    public static final int PARALLEL_THRESHOLD = 128;
+
+    /** Stores the game being simulated
+    */
+    protected Game game;
+    /** Stores the real time that has passed but not yet been simulated, in nanoseconds
+    */
+    protected long accumulator;
+    /** Stores the key codes drained from the input queue, reused every tick
+    */
+    private final int[] keyCodes;
+    /** Stores the times of the key presses drained from the input queue, reused every tick
+    */
+    private final long[] keyTimes;
+    /** Stores the pool the ghosts are planned on, or null to plan them on the simulation's thread
+    */
+    protected ForkJoinPool pool;
+    /** Stores the fewest ghosts that are planned on the pool
+    */
+    protected int parallelThreshold;
+
+    /** Constructs a new simulation for the given game, planning large numbers of ghosts on the common pool
+    @param game The game to simulate
+    */
+    public Simulation(Game game) {
+        this.game = game;
+        this.accumulator = 0;
+        this.pool = ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : null;
+        this.parallelThreshold = PARALLEL_THRESHOLD;
+        this.keyCodes = new int[game.inputQueue.getCapacity()];
+        this.keyTimes = new long[game.inputQueue.getCapacity()];
+    }
+
+    /** Handles the key presses queued since the last tick, in the order they were pressed
+    */
+    public void handleInputs() {
+        int count = this.game.inputQueue.drain(this.keyCodes, this.keyTimes);
+        Metrics metrics = this.game.metrics;
+        for (int i = 0; i < count; i++) {
+            this.game.handleInput(this.keyCodes[i]);
+            if (metrics != null) {
+                metrics.record(Metrics.INPUT, this.keyTimes[i]);
+            }
+        }
+    }
+
+    /** Sets where the ghosts are planned.
+    The game plays out the same wherever they are planned, only the time a tick takes changes.
+    @param pool The pool to plan the ghosts on, or null to plan them on the simulation's thread
+    @param parallelThreshold The fewest ghosts that are planned on the pool
+    */
+    public void setParallelism(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /** Ticks through the entities in the game.
+    With enough ghosts, every ghost first ranks its moves in parallel against the world snapshot,
+    then the ghosts move one after another in list order, exactly as they would on a single thread.
+    */
+    public void tickEntities() {
+        Metrics metrics = this.game.metrics;
+        long start = metrics == null ? 0 : metrics.start();
+        int ghosts = this.game.ghosts.size();
+        if (this.pool != null && ghosts >= this.parallelThreshold) {
+            this.pool.invoke(new GhostPlanner(this.game.ghosts, this.game.modes.getSnapshot(), 0, ghosts));
+        }
+        for (Ghost ghost : this.game.ghosts) {
+            ghost.tick();
+        }
+        if (metrics != null) {
+            metrics.record(Metrics.GHOST_AI, start);
+        }
+        this.game.waka.tick();
+    }
+
+    /** Advances the game by exactly one tick, timing it if the game has metrics.
+    Once the game has been won or lost it is flagged for reset and no longer advances.
+    @return Returns true if the game is still running after the tick
+    */
+    public boolean step() {
+        Metrics metrics = this.game.metrics;
+        if (metrics == null) {
+            return stepGame();
+        }
+        long start = metrics.start();
+        boolean running = stepGame();
+        metrics.record(Metrics.TICK, start);
+        return running;
+    }
+
+    /** Advances the game by exactly one tick
+    @return Returns true if the game is still running after the tick
+    */
+    private boolean stepGame() {
+        if (this.game.resetGame) {
+            return false;
+        }
+        // Handles the key presses first, so they are recorded against this tick
+        handleInputs();
+        // Moves between scatter, chase and frightened once for every ghost
+        this.game.modes.advance(this.game.tick);
+        // Captures what the ghosts target from, so they all see the same waka and ghost positions
+        this.game.world.capture(this.game);
+        // Ticks through the entities
+        tickEntities();
+        this.game.tick += 1;
+
+        // Checks for whether there is a win or lose condition
+        if (this.game.checkWinOrLose()) {
+            this.game.resetGame = true;
+            return false;
+        }
+        return true;
+    }
+
+    /** Runs the game for up to the given number of ticks, stopping early if it is won or lost
+    @return The number of ticks that were simulated
+    @param ticks The maximum number of ticks to simulate
+    */
+    public int run(int ticks) {
+        int count = 0;
+        while (count < ticks && step()) {
+            count += 1;
+        }
+        return count;
+    }
+
+    /** Advances the game by as many fixed ticks as fit in the elapsed real time.
+    Leftover time is carried over to the next call so the tick rate does not depend on the frame rate.
+    @return The number of ticks that were simulated
+    @param elapsedNanos The real time elapsed since the last call, in nanoseconds
+    */
+    public int advance(long elapsedNanos) {
+        this.accumulator += Math.max(0, elapsedNanos);
+        // Drop any time beyond what we are willing to catch up on
+        long maxBacklog = NANOS_PER_TICK * MAX_CATCH_UP_TICKS;
+        if (this.accumulator > maxBacklog) {
+            this.accumulator = maxBacklog;
+        }
+        int count = 0;
+        while (this.accumulator >= NANOS_PER_TICK && !this.game.resetGame) {
+            step();
+            this.accumulator -= NANOS_PER_TICK;
+            count += 1;
+        }
+        return count;
+    }
+
+    /** Gets the game being simulated
+    @return The game being simulated
+    */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /** Gets the number of ticks simulated so far
+    @return The current tick
+    */
+    public int getTick() {
+        return this.game.tick;
+    }
+}
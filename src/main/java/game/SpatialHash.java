@@ -0,0 +1,278 @@
+package game;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SpatialHash {
+
+    /** The key stored in an unused table entry
+    */
+    private static final long EMPTY = -1;
+
+    /** Stores the number of columns, which is also the stride between rows
+    */
+    protected final int width;
+    /** Stores the number of rows
+    */
+    protected final int height;
+    /** Stores the tile of each occupied bucket as row * width + column, or EMPTY if the entry is unused
+    */
+    private long[] keys;
+    /** Stores the first entity slot in each occupied bucket
+    */
+    private int[] heads;
+    /** Stores every entity added, indexed by its slot
+    */
+    private Entity[] entities;
+    /** Stores the next slot in the same bucket as each slot, or -1 at the end of the bucket
+    */
+    private int[] next;
+    /** Stores the previous slot in the same bucket as each slot, or -1 at the start of the bucket
+    */
+    private int[] previous;
+    /** Stores the tile each slot is currently on
+    */
+    private long[] tiles;
+    /** Stores the number of entities added
+    */
+    private int count;
+
+    /** Constructs an empty spatial hash for a board.
+    Only tiles with an entity on them have a bucket, so the memory used follows the number of entities rather than the size of the board.
+    @param width The number of columns
+    @param height The number of rows
+    */
+    public SpatialHash(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.keys = new long[16];
+        Arrays.fill(this.keys, EMPTY);
+        this.heads = new int[16];
+        this.entities = new Entity[8];
+        this.next = new int[8];
+        this.previous = new int[8];
+        this.tiles = new long[8];
+        this.count = 0;
+    }
+
+    /** Gets the tile under the given pixel coordinates.
+    Positions off the board share the bucket of the closest edge tile, so callers still compare exact tiles.
+    @return The tile as row * width + column
+    @param x The x coordinate in pixels
+    @param y The y coordinate in pixels
+    */
+    private long tile(int x, int y) {
+        return tileAt(Math.floorDiv(x, Board.TILE_SIZE), Math.floorDiv(y, Board.TILE_SIZE));
+    }
+
+    /** Gets the given tile, clamped to the board
+    @return The tile as row * width + column
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    private long tileAt(int col, int row) {
+        col = Math.max(0, Math.min(this.width - 1, col));
+        row = Math.max(0, Math.min(this.height - 1, row));
+        return Math.max(0, (long) row * this.width + col);
+    }
+
+    /** Gets the table entry a tile is first looked for in
+    @return The index of the entry
+    @param tile The tile
+    */
+    private int home(long tile) {
+        int hash = (int) (tile ^ (tile >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (this.keys.length - 1);
+    }
+
+    /** Finds the table entry holding a tile, probing linearly from its home entry
+    @return The index of the entry, or of the unused entry the tile would go in
+    @param tile The tile
+    */
+    private int find(long tile) {
+        int mask = this.keys.length - 1;
+        int index = home(tile);
+        while (this.keys[index] != EMPTY && this.keys[index] != tile) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /** Gets the first slot in the bucket of a tile
+    @return The slot, or -1 if no entity is on the tile
+    @param tile The tile
+    */
+    private int head(long tile) {
+        int index = find(tile);
+        return this.keys[index] == EMPTY ? -1 : this.heads[index];
+    }
+
+    /** Adds an entity to the bucket of the tile it is on
+    @param entity The entity to add, which must not already be in a spatial hash
+    */
+    public void add(Entity entity) {
+        if (this.count == this.entities.length) {
+            int capacity = this.count * 2;
+            this.entities = Arrays.copyOf(this.entities, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.previous = Arrays.copyOf(this.previous, capacity);
+            this.tiles = Arrays.copyOf(this.tiles, capacity);
+            // Keep the table at most half full, as there is at most one bucket per entity
+            rehash(capacity * 2);
+        }
+        int slot = this.count;
+        this.count += 1;
+        this.entities[slot] = entity;
+        entity.hashSlot = slot;
+        link(slot, tile(entity.getX(), entity.getY()));
+    }
+
+    /** Moves an entity to the bucket of the tile it is now on.
+    This is constant time, and does nothing if the entity is still on the same tile or was never added.
+    @param entity The entity that moved
+    */
+    public void update(Entity entity) {
+        int slot = entity.hashSlot;
+        if (slot < 0 || slot >= this.count || this.entities[slot] != entity) {
+            return;
+        }
+        long tile = tile(entity.getX(), entity.getY());
+        if (tile != this.tiles[slot]) {
+            unlink(slot);
+            link(slot, tile);
+        }
+    }
+
+    /** Rebuilds the table with a new number of entries
+    @param capacity The new number of entries, a power of two
+    */
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        int[] oldHeads = this.heads;
+        this.keys = new long[capacity];
+        Arrays.fill(this.keys, EMPTY);
+        this.heads = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = find(oldKeys[i]);
+                this.keys[index] = oldKeys[i];
+                this.heads[index] = oldHeads[i];
+            }
+        }
+    }
+
+    /** Inserts a slot at the front of a tile's bucket, creating the bucket if the tile had no entities
+    @param slot The slot to insert
+    @param tile The tile to insert it into
+    */
+    private void link(int slot, long tile) {
+        int index = find(tile);
+        int head = -1;
+        if (this.keys[index] == EMPTY) {
+            this.keys[index] = tile;
+        } else {
+            head = this.heads[index];
+        }
+        this.next[slot] = head;
+        this.previous[slot] = -1;
+        if (head != -1) {
+            this.previous[head] = slot;
+        }
+        this.heads[index] = slot;
+        this.tiles[slot] = tile;
+    }
+
+    /** Removes a slot from the bucket it is in, dropping the bucket once it is empty
+    @param slot The slot to remove
+    */
+    private void unlink(int slot) {
+        int before = this.previous[slot];
+        int after = this.next[slot];
+        if (before == -1) {
+            int index = find(this.tiles[slot]);
+            if (after == -1) {
+                remove(index);
+            } else {
+                this.heads[index] = after;
+            }
+        } else {
+            this.next[before] = after;
+        }
+        if (after != -1) {
+            this.previous[after] = before;
+        }
+    }
+
+    /** Clears a table entry, shifting back any later entries in its probe run so lookups still find them
+    @param index The index of the entry to clear
+    */
+    private void remove(int index) {
+        int mask = this.keys.length - 1;
+        int hole = index;
+        int probe = index;
+        while (true) {
+            probe = (probe + 1) & mask;
+            if (this.keys[probe] == EMPTY) {
+                break;
+            }
+            // The entry can fill the hole if the hole lies between its home entry and where it is now
+            int home = home(this.keys[probe]);
+            if (((probe - home) & mask) >= ((probe - hole) & mask)) {
+                this.keys[hole] = this.keys[probe];
+                this.heads[hole] = this.heads[probe];
+                hole = probe;
+            }
+        }
+        this.keys[hole] = EMPTY;
+    }
+
+    /** Gets the first entity in the bucket of the given tile.
+    Walk the rest of the bucket with getNext, which allocates nothing.
+    @return The first entity, or null if the bucket is empty
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    public Entity getFirst(int col, int row) {
+        int head = head(tileAt(col, row));
+        return head == -1 ? null : this.entities[head];
+    }
+
+    /** Gets the entity after the given one in its bucket
+    @return The next entity, or null if it is the last in its bucket
+    @param entity The current entity
+    */
+    public Entity getNext(Entity entity) {
+        int after = this.next[entity.hashSlot];
+        return after == -1 ? null : this.entities[after];
+    }
+
+    /** Collects every entity in the given tile and the eight tiles around it
+    @return The number of entities added to the list
+    @param col The column of the centre tile
+    @param row The row of the centre tile
+    @param out The list the entities are added to
+    */
+    public int getNeighbours(int col, int row, List<Entity> out) {
+        int added = 0;
+        int minCol = Math.max(0, col - 1);
+        int maxCol = Math.min(this.width - 1, col + 1);
+        int minRow = Math.max(0, row - 1);
+        int maxRow = Math.min(this.height - 1, row + 1);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                for (int slot = head((long) r * this.width + c); slot != -1; slot = this.next[slot]) {
+                    out.add(this.entities[slot]);
+                    added += 1;
+                }
+            }
+        }
+        return added;
+    }
+
+    /** Gets the number of entities in the spatial hash
+    @return The number of entities
+    */
+    public int size() {
+        return this.count;
+    }
+}
@@ -0,0 +1,80 @@
+package game;
+
+import java.util.HashMap;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+public class SpriteCache {
+
+    /** Stores every sprite loaded so far, keyed by its resource path
+    */
+    private static final HashMap<String, PImage> sprites = new HashMap<String, PImage>();
+    /** Stores the sprite for each cell ID, indexed by the cell ID character
+    */
+    private static final PImage[] cellSprites = new PImage[128];
+
+    /** Gets the sprite for the given resource path, loading it only the first time it is requested
+    @return The shared sprite, or null if there is no app to load it with
+    @param app Instance of the app
+    @param path The path of the sprite resource
+    */
+    public static synchronized PImage get(PApplet app, String path) {
+        PImage sprite = sprites.get(path);
+        if (sprite == null && app != null && path != null) {
+            sprite = app.loadImage(path);
+            sprites.put(path, sprite);
+        }
+        return sprite;
+    }
+
+    /** Gets the sprite for the given cell ID, loading it from the resource path only the first time
+    @return The shared sprite, or null if there is no app to load it with
+    @param app Instance of the app
+    @param cellID The cell ID corresponding to the sprite
+    @param path The path of the sprite resource
+    */
+    public static synchronized PImage getCell(PApplet app, char cellID, String path) {
+        if (cellID >= cellSprites.length) {
+            return get(app, path);
+        }
+        PImage sprite = cellSprites[cellID];
+        if (sprite == null) {
+            sprite = get(app, path);
+            cellSprites[cellID] = sprite;
+        }
+        return sprite;
+    }
+
+    /** Gets a resized copy of the sprite for the given resource path.
+    The shared sprite is left untouched so other users still see its original size.
+    @return The shared resized sprite, or null if there is no app to load it with
+    @param app Instance of the app
+    @param path The path of the sprite resource
+    @param width The width to resize to
+    @param height The height to resize to
+    */
+    public static synchronized PImage getResized(PApplet app, String path, int width, int height) {
+        String key = path + "@" + width + "x" + height;
+        PImage sprite = sprites.get(key);
+        if (sprite == null) {
+            PImage original = get(app, path);
+            if (original == null) {
+                return null;
+            }
+            sprite = original.get();
+            sprite.resize(width, height);
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /** Removes every cached sprite, forcing them to be loaded again on next use
+    */
+    public static synchronized void clear() {
+        sprites.clear();
+        for (int i = 0; i < cellSprites.length; i++) {
+            cellSprites[i] = null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package game;
+
+import ghost.*;
+
+public class WorldSnapshot {
+
+    /** Stores the ghosts of the game indexed by type
+    */
+    public final GhostRegistry registry;
+    /** Stores the x coordinate of every ghost at the start of the tick, indexed like the game's ghost list
+    */
+    private final int[] ghostX;
+    /** Stores the y coordinate of every ghost at the start of the tick
+    */
+    private final int[] ghostY;
+
+    /** Stores the tick the snapshot was taken at
+    */
+    private int tick;
+    /** Stores the x coordinate of the waka
+    */
+    private int wakaX;
+    /** Stores the y coordinate of the waka
+    */
+    private int wakaY;
+    /** Stores the direction the waka last moved in
+    */
+    private int wakaDirection;
+    /** Stores the mode of the ghosts
+    */
+    private ModeSnapshot mode;
+
+    /** Constructs an empty snapshot for the given ghosts
+    @param registry The ghosts of the game indexed by type
+    @param ghosts The number of ghosts in the game
+    */
+    public WorldSnapshot(GhostRegistry registry, int ghosts) {
+        this.registry = registry;
+        this.ghostX = new int[ghosts];
+        this.ghostY = new int[ghosts];
+    }
+
+    /** Captures the state the ghosts target from, once at the start of every tick.
+    The arrays are reused, so taking a snapshot allocates nothing.
+    @param game The game to capture
+    */
+    public void capture(Game game) {
+        this.tick = game.tick;
+        if (game.waka != null) {
+            this.wakaX = game.waka.getX();
+            this.wakaY = game.waka.getY();
+            this.wakaDirection = game.waka.getLastMove();
+        }
+        this.mode = game.modes.getSnapshot();
+        int count = Math.min(this.ghostX.length, game.ghosts.size());
+        for (int i = 0; i < count; i++) {
+            Ghost ghost = game.ghosts.get(i);
+            this.ghostX[i] = ghost.getX();
+            this.ghostY[i] = ghost.getY();
+        }
+    }
+
+    /** Gets the tick the snapshot was taken at
+    @return The tick
+    */
+    public int getTick() {
+        return this.tick;
+    }
+
+    /** Gets the x coordinate of the waka
+    @return The x coordinate in pixels
+    */
+    public int getWakaX() {
+        return this.wakaX;
+    }
+
+    /** Gets the y coordinate of the waka
+    @return The y coordinate in pixels
+    */
+    public int getWakaY() {
+        return this.wakaY;
+    }
+
+    /** Gets the direction the waka last moved in
+    @return The key code of the direction
+    */
+    public int getWakaDirection() {
+        return this.wakaDirection;
+    }
+
+    /** Gets the mode of the ghosts
+    @return The mode snapshot
+    */
+    public ModeSnapshot getMode() {
+        return this.mode;
+    }
+
+    /** Gets the x coordinate of a ghost at the start of the tick
+    @return The x coordinate in pixels
+    @param index The index of the ghost in the game's ghost list
+    */
+    public int getGhostX(int index) {
+        return this.ghostX[index];
+    }
+
+    /** Gets the y coordinate of a ghost at the start of the tick
+    @return The y coordinate in pixels
+    @param index The index of the ghost in the game's ghost list
+    */
+    public int getGhostY(int index) {
+        return this.ghostY[index];
+    }
+}
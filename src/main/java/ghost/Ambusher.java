@@ -1,61 +1,85 @@
 package ghost;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import processing.core.PApplet;
-import processing.core.PImage;
-
 import game.*;
 
-public class Ambusher extends Ghost {
+public class Ambusher implements GhostStrategy {
+
+    /** The name the ambusher is bound by in the config
+    */
+    public static final String NAME = "ambusher";
+
+    /** Gets the name the strategy is bound to map characters by in the config
+    @return The name of the strategy
+    */
+    public String getName() {
+        return NAME;
+    }
+
+    /** Gets the map character the strategy is bound to when the config does not bind it
+    @return The default cell ID
+    */
+    public char getDefaultCellID() {
+        return 'a';
+    }
+
+    /** Gets the path of the sprite drawn for ghosts using the strategy
+    @return The path of the sprite resource
+    */
+    public String getSprite() {
+        return "src/main/resources/ambusher.png";
+    }
+
+    /** Gets the x coordinate of the corner targeted while scattering
+    @return The x coordinate in pixels
+    */
+    public int getCornerX() {
+        return 448;
+    }
 
-    /** Creates a new Ambusher object
-    @param x The x coordinate of the ambusher
-    @param y The y coordinate of the ambusher
-    @param cellID The cell ID corresponding to the ambusher
-    @param sprite The sprite of the ambusher
-    @param app Instance of the app
+    /** Gets the y coordinate of the corner targeted while scattering
+    @return The y coordinate in pixels
     */
-    public Ambusher(int x, int y, char cellID, PImage sprite, App app) {
-        super(x, y, cellID, sprite, app);
-        this.cornerX = 448;
-        this.cornerY = 0;
+    public int getCornerY() {
+        return 0;
     }
 
-    /** Finds the coordinates for where the ghost will move towards
-    @return Integer array containing the x and y coordinates
-    @param app Instance of the app
+    /** Finds the coordinates a ghost will move towards
+    @param world The state of the game at the start of the tick
+    @param selfX The x coordinate of the ghost
+    @param selfY The y coordinate of the ghost
     @param scatter The current scatter state
+    @param out The array the x and y coordinates of the target are written to
     */
-    public int[] targetMove(App app, boolean scatter) {
+    public void target(WorldSnapshot world, int selfX, int selfY, boolean scatter, int[] out) {
         // Checks current scatter state, targets corner if true
         if (scatter) {
-            return new int[] {448, 0};
+            out[0] = 448;
+            out[1] = 0;
+            return;
         }
 
         // Gets the waka's direction and position
-        int wakaX = app.game.waka.getX();
-        int wakaY = app.game.waka.getY();
-        int lastMove = app.game.waka.getLastMove();
+        int wakaX = world.getWakaX();
+        int wakaY = world.getWakaY();
+        int lastMove = world.getWakaDirection();
 
         // Targts two units in front of waka given its current direction
         if (lastMove == 38) {
             // UP
-            return new int[] {wakaX, wakaY - 64};
+            wakaY -= 64;
         } else if (lastMove == 37) {
             // LEFT
-            return new int[] {wakaX - 64, wakaY};
+            wakaX -= 64;
         } else if (lastMove == 40) {
             // DOWN
-            return new int[] {wakaX, wakaY + 64};
+            wakaY += 64;
         } else if (lastMove == 39) {
             // RIGHT
-            return new int[] {wakaX + 64, wakaY};
-        } else {
-            // If the last move isn't correctly defined
-            // default to targetting the waka's current position
-            return new int[] {wakaX, wakaY};
+            wakaX += 64;
         }
+        // If the last move isn't correctly defined
+        // default to targetting the waka's current position
+        out[0] = wakaX;
+        out[1] = wakaY;
     }
 }
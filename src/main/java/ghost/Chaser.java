@@ -2,38 +2,63 @@ package ghost;
 
 import game.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import processing.core.PApplet;
-import processing.core.PImage;
-
-public class Chaser extends Ghost {
-
-    /** Creates a new Chaser object
-    @param x The x coordinate of the chaser
-    @param y The y coordinate of the chaser
-    @param cellID The cell ID corresponding to the chaser
-    @param sprite The sprite of the chaser
-    @param app Instance of the app
+public class Chaser implements GhostStrategy {
+
+    /** The name the chaser is bound by in the config
+    */
+    public static final String NAME = "chaser";
+
+    /** Gets the name the strategy is bound to map characters by in the config
+    @return The name of the strategy
+    */
+    public String getName() {
+        return NAME;
+    }
+
+    /** Gets the map character the strategy is bound to when the config does not bind it
+    @return The default cell ID
+    */
+    public char getDefaultCellID() {
+        return 'c';
+    }
+
+    /** Gets the path of the sprite drawn for ghosts using the strategy
+    @return The path of the sprite resource
+    */
+    public String getSprite() {
+        return "src/main/resources/chaser.png";
+    }
+
+    /** Gets the x coordinate of the corner targeted while scattering
+    @return The x coordinate in pixels
+    */
+    public int getCornerX() {
+        return 0;
+    }
+
+    /** Gets the y coordinate of the corner targeted while scattering
+    @return The y coordinate in pixels
     */
-    public Chaser(int x, int y, char cellID, PImage sprite, App app) {
-        super(x, y, cellID, sprite, app);
-        this.cornerX = 0;
-        this.cornerY = 0;
+    public int getCornerY() {
+        return 0;
     }
 
-    /** Finds the coordinates for where the ghost will move towards
-    @return Integer array containing the x and y coordinates
-    @param app Instance of the app
+    /** Finds the coordinates a ghost will move towards
+    @param world The state of the game at the start of the tick
+    @param selfX The x coordinate of the ghost
+    @param selfY The y coordinate of the ghost
     @param scatter The current scatter state
+    @param out The array the x and y coordinates of the target are written to
     */
-    public int[] targetMove(App app, boolean scatter) {
+    public void target(WorldSnapshot world, int selfX, int selfY, boolean scatter, int[] out) {
         // Checks current scatter state, targets corner if true
         if (scatter) {
-            return new int[] {0, 0};
+            out[0] = 0;
+            out[1] = 0;
+            return;
         }
         // Targets the waka's position
-        return new int[] {app.game.waka.getX(), app.game.waka.getY()};
+        out[0] = world.getWakaX();
+        out[1] = world.getWakaY();
     }
 }
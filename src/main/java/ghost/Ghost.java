@@ -3,13 +3,14 @@ package ghost;
 import game.*;
 import waka.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import processing.core.PApplet;
 import processing.core.PImage;
 
-public abstract class Ghost extends Entity {
+public class Ghost extends Entity {
+
+    /** Stores the strategy deciding where the ghost targets
+    */
+    protected final GhostStrategy strategy;
 
     /** Stores the PImage of the frightened sprite
     */
@@ -22,56 +23,149 @@ public abstract class Ghost extends Entity {
     */
     protected int cornerY;
 
+    /** Stores the x coordinate of the most recent target, used to draw the debug line
+    */
+    protected int targetX;
+    /** Stores the y coordinate of the most recent target, used to draw the debug line
+    */
+    protected int targetY;
+    /** Stores whether the most recent target was chosen while scattering
+    */
+    protected boolean targetScatter;
+
+    /** Stores whether the moves for the current tick have already been ranked by plan
+    */
+    protected boolean planned;
+
+    /** Stores the target coordinates returned by targetMove, reused every tick
+    */
+    protected final int[] target;
+    /** Stores the moves ranked by getBestMove, reused every tick
+    */
+    protected final int[] rankedMoves;
+    /** Stores the ranking key of each ranked move, reused every tick
+    */
+    protected final long[] rankedDistances;
+
     /** The constructor for the Ghost class
     @param x The x coordinate of the ghost
     @param y The y coordinate of the ghost
     @param cellID The cell ID corresponding to the ghost
-    @param sprite The sprite of the ghost
-    @param app Instance of the app
+    @param strategy The strategy deciding where the ghost targets
+    @param game Instance of the game
     */
-    public Ghost(int x, int y, char cellID, PImage sprite, App app) {
-        super(x, y, cellID, sprite, app);
-        this.frightenedSprite = app.loadImage("src/main/resources/frightened.png");
+    public Ghost(int x, int y, char cellID, GhostStrategy strategy, Game game) {
+        super(x, y, cellID, SpriteCache.get(game.app, strategy.getSprite()), game);
+        this.strategy = strategy;
+        this.cornerX = strategy.getCornerX();
+        this.cornerY = strategy.getCornerY();
+        this.frightenedSprite = SpriteCache.get(game.app, "src/main/resources/frightened.png");
+        this.target = new int[2];
+        this.rankedMoves = new int[4];
+        this.rankedDistances = new long[4];
+        this.planned = false;
     }
 
-    /** Ticks the ghost
-    @param app Instance of the app
+    /** Ticks the ghost, emitting a flight recorder event if they are enabled
     */
-    public void tick(App app) {
+    public void tick() {
+        GameEvents.GhostTick event = new GameEvents.GhostTick();
+        event.begin();
+        update();
+        event.end();
+        if (event.shouldCommit()) {
+            event.ghostType = this.cellID;
+            event.mode = this.game.getModeName();
+            event.map = this.game.filename;
+            event.tick = this.game.tick;
+            event.commit();
+        }
+    }
+
+    /** Ranks the moves towards the ghost's target for the current tick without moving it.
+    Only reads the world snapshot, the navigation data and the ghost's own state,
+    so every ghost can be planned on a different thread before any of them move.
+    @param mode The mode of the ghosts for the current tick
+    */
+    public void plan(ModeSnapshot mode) {
+        if (!this.alive || mode.frightened) {
+            // Dead and frightened ghosts do not target anything
+            return;
+        }
+        if (getCorridorMove() != 0) {
+            // Nothing to decide in a corridor, so there is no need for a target
+            return;
+        }
+        // Decides the target coordinates depending on scatter state
+        boolean scatter = mode.scatter;
+        GameEvents.TargetMove targetEvent = new GameEvents.TargetMove();
+        targetEvent.begin();
+        int[] targetCoordinates = targetMove(this.game.world, scatter);
+        targetEvent.end();
+        if (targetEvent.shouldCommit()) {
+            targetEvent.ghostType = this.cellID;
+            targetEvent.mode = scatter ? Game.SCATTER : Game.CHASE;
+            targetEvent.targetX = targetCoordinates[0];
+            targetEvent.targetY = targetCoordinates[1];
+            targetEvent.commit();
+        }
+        // Remember the target so the renderer can draw the debug line
+        this.targetX = targetCoordinates[0];
+        this.targetY = targetCoordinates[1];
+        this.targetScatter = scatter;
+        // Find the best move given the target coordinates
+        getBestMove(targetCoordinates[0], targetCoordinates[1]);
+        this.planned = true;
+    }
+
+    /** Moves the ghost, randomly while frightened and otherwise along the moves ranked by plan.
+    The moves are planned first if they have not been already.
+    */
+    private void update() {
         // If the ghost has been eaten, reset the ghost
         if (!this.alive) {
             this.reset();
             return;
-        } else if (app.game.frightened) {
-            // Pick a random move
-            this.nextMove = (int)(Math.random() * ((40 - 37) + 1)) + 37;
+        }
+        // Every ghost reads the same mode, which the scheduler only changes between ticks
+        ModeSnapshot mode = this.game.modes.getSnapshot();
+        if (mode.frightened) {
+            // Pick a random move, in ghost order so the game's random numbers are drawn the same way every run
+            this.nextMove = this.game.random.nextInt((40 - 37) + 1) + 37;
             // Ensure this move doesn't move the ghost backwards
-            if (validMove(this.nextMove, this.lastMove) && !checkCollision(this.nextMove, app)) {
-                move(this.nextMove, app);
+            if (validMove(this.nextMove, this.lastMove) && !checkCollision(this.nextMove)) {
+                move(this.nextMove);
             }
-            // Reset the frightened state if the designated time has elapsed
-            if ((app.frameCount - app.game.frightenedTime) / 60 > app.game.frightenedLength) {
-                app.game.frightened = false;
-                app.game.sodaCanEffect = false;
+            return;
+        }
+        // In a corridor every ranking of the moves leads the same way, so skip straight to it
+        int corridorMove = this.planned ? 0 : getCorridorMove();
+        if (corridorMove != 0) {
+            // The target only matters to the debug line here, so it is only worked out while that is drawn
+            if (this.game.app != null && this.game.app.debug) {
+                rememberTarget(mode.scatter);
             }
+            this.nextMove = 0;
+            step(corridorMove);
             return;
         }
-        // Decides the target coordinates depending on scatter state
-        int[] targetCoordinates = targetMove(app, checkScatter());
-        // Find the best move given the target coordinates
-        ArrayList<Integer> moveCode = getBestMove(targetCoordinates[0], targetCoordinates[1], app);
+        if (!this.planned) {
+            plan(mode);
+        }
+        this.planned = false;
+        int[] moveCode = this.rankedMoves;
         // Attempts to set the next move for the ghost
         for (int move : moveCode) {
             // Check that the ghost isn't moving backwards or colliding with a wall
-            if (validMove(this.lastMove, move) && !checkCollision(move, app)) {
+            if (validMove(this.lastMove, move) && !checkCollision(move)) {
                 this.nextMove = move;
                 break;
             }
         }
         // Move the ghost
-        if (!move(this.lastMove, app)) {
+        if (!move(this.lastMove)) {
             for (int i : moveCode) {
-                if (move(i, app)) {
+                if (move(i)) {
                     // Loop will break as soon as a move has been executed
                     break;
                 }
@@ -79,26 +173,42 @@ public abstract class Ghost extends Entity {
         }
     }
 
-    /** Checks for whether the ghost is currently in scatter mode
+    /** Works out the target from the world snapshot and keeps it for the debug line, without ranking any moves
+    @param scatter Whether the ghosts are scattering
+    */
+    private void rememberTarget(boolean scatter) {
+        int[] targetCoordinates = targetMove(this.game.world, scatter);
+        this.targetX = targetCoordinates[0];
+        this.targetY = targetCoordinates[1];
+        this.targetScatter = scatter;
+    }
+
+    /** Gets the move the ghost has to make when it is in a corridor.
+    When the only move that is not backwards is clear, the ghost takes it whatever its target is,
+    so the target and the ranking of the moves can be skipped.
+    @return The key code of the only way forward, or 0 if the ghost has a decision to make
+    */
+    public int getCorridorMove() {
+        JunctionGraph junctions = this.game.junctions;
+        if (junctions == null) {
+            return 0;
+        }
+        return junctions.getOnlyWayForward(this.x, this.y, this.speed, this.lastMove);
+    }
+
+    /** Restores the ghost to the state it started the game in
+    */
+    public void restart() {
+        super.restart();
+        this.lastMove = 0;
+        this.planned = false;
+    }
+
+    /** Checks for whether the ghost is currently in scatter mode, without changing the mode
     @return True if the ghost is in scatter mode, otherwise false
     */
     public boolean checkScatter() {
-        // Reset the cursor and scatter state
-        int modeLengthSize = app.game.modeLengths.size();
-        if (modeLengthSize == this.app.game.modeCursor || modeLengthSize == 1) {
-            this.app.game.modeCursor = 0;
-            this.app.game.scatterState = true;
-            return true;
-        }
-        // If the time for the current mode has elapsed
-        if (app.time / 60 >= app.game.modeLengths.get(this.app.game.modeCursor)) {
-            app.time = 0;
-            // Change the state of scatter
-            app.game.scatterState = !app.game.scatterState;
-            // Incremenet the cursor
-            this.app.game.modeCursor += 1;
-        }
-        return app.game.scatterState;
+        return this.game.modes.getSnapshot().scatter;
     }
 
     /** Checks whether the given move does not move the ghost backwards
@@ -128,56 +238,81 @@ public abstract class Ghost extends Entity {
         }
     }
 
-    /** Gets the best move for a given direction
-    @return Returns a list of moves ranked from best to worst
+    /** Gets the best move for a given direction.
+    Moves are ranked by the walking distance to the target from the neighbouring tile,
+    then by their squared distance to the target, using a fixed four slot insertion sort.
+    Ties keep the order up, left, down, right, so no move is ever dropped.
+    The returned array is reused by the next call.
+    @return Returns an array of moves ranked from best to worst
     @param targetX The x position of the target
     @param targetY The Y position of the target
-    @param app The instance of the app
     */
-    public ArrayList<Integer> getBestMove(int targetX, int targetY, App app) {
-
-        ArrayList<Double> distances = new ArrayList<Double>();
-        HashMap<Double, Integer> map = new HashMap<Double, Integer>();
+    public int[] getBestMove(int targetX, int targetY) {
+        int[] moves = this.rankedMoves;
+        long[] distances = this.rankedDistances;
 
-        // Draws the debug line
-        if (app.debug) {
-            app.stroke(255, 255, 255);
-            if (!checkScatter()) {
-                targetX += magicOffset;
-                targetY += magicOffset;
+        // Looks up the distance field towards the target, if the map has navigation data
+        Navigation navigation = this.game.navigation;
+        short[] field = null;
+        if (navigation != null) {
+            int targetTile = navigation.getTargetTile(targetX, targetY);
+            if (targetTile != -1) {
+                field = navigation.getField(targetTile);
             }
-            int x = this.x + this.magicOffset;
-            int y = this.y + this.magicOffset;
-            app.line((float) x, (float) y, (float) targetX, (float) targetY);
         }
-        // Calculates the euclidean distance
-        double moveW = getDistance(this.x, targetX, this.y - 1, targetY);
-        double moveA = getDistance(this.x - 1, targetX, this.y, targetY);
-        double moveS = getDistance(this.x, targetX, this.y + 1, targetY);
-        double moveD = getDistance(this.x + 1, targetX, this.y, targetY);
-
-        // Add each (move, distance) as a key, value pair
-        // Add each distance to a list
-        distances.add(moveW);
-        map.put(moveW, 38);
-        distances.add(moveA);
-        map.put(moveA, 37);
-        distances.add(moveS);
-        map.put(moveS, 40);
-        distances.add(moveD);
-        map.put(moveD, 39);
-
-        // Sort the list of distances from smallest to largest
-        Collections.sort(distances);
-        ArrayList<Integer> bestMove = new ArrayList<Integer>();
-
-        // Create a list of moves ordered from best to worst
+
+        // Calculates the walking and squared euclidean distance after each move
+        moves[0] = 38;
+        distances[0] = rankMove(field, 38, getSquaredDistance(this.x, targetX, this.y - 1, targetY));
+        moves[1] = 37;
+        distances[1] = rankMove(field, 37, getSquaredDistance(this.x - 1, targetX, this.y, targetY));
+        moves[2] = 40;
+        distances[2] = rankMove(field, 40, getSquaredDistance(this.x, targetX, this.y + 1, targetY));
+        moves[3] = 39;
+        distances[3] = rankMove(field, 39, getSquaredDistance(this.x + 1, targetX, this.y, targetY));
+
+        // Sort the moves from smallest to largest distance
         // Where the best move has the smallest euclidean distance
-        for (double d : distances) {
-            bestMove.add(map.get(d));
+        for (int i = 1; i < 4; i++) {
+            int move = moves[i];
+            long distance = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > distance) {
+                moves[j + 1] = moves[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            distances[j + 1] = distance;
+        }
+        return moves;
+    }
+
+    /** Combines the walking distance and squared euclidean distance of a move into a single ranking key
+    @return The ranking key, where smaller is better
+    @param field The distance field of the target, or null to rank by euclidean distance alone
+    @param moveCode The move being ranked
+    @param squaredDistance The squared euclidean distance to the target after the move
+    */
+    private long rankMove(short[] field, int moveCode, int squaredDistance) {
+        long walkingDistance = 0;
+        if (field != null) {
+            walkingDistance = this.game.navigation.getDistance(field, this.x, this.y, moveCode);
         }
+        return (walkingDistance << 32) | squaredDistance;
+    }
 
-        return bestMove;
+    /** Gets the squared euclidean distance between two points
+    @return Returns the squared euclidean distance
+    @param ghostX Ghost's x position
+    @param x Target x position
+    @param ghostY Ghost's y position
+    @param y Target y position
+    */
+    public int getSquaredDistance(int ghostX, int x, int ghostY, int y) {
+        int xVal = ghostX - x;
+        int yVal = ghostY - y;
+        return xVal * xVal + yVal * yVal;
     }
 
     /** Gets the euclidean distance between two points
@@ -201,8 +336,23 @@ public abstract class Ghost extends Entity {
         if (!this.alive) {
             return;
         }
-        boolean frightened = this.app.game.frightened;
-        boolean sodaCanEffect = app.game.sodaCanEffect;
+        ModeSnapshot mode = this.game.modes.getSnapshot();
+        boolean frightened = mode.frightened;
+        boolean sodaCanEffect = mode.invisible;
+
+        // Draws the debug line towards the most recent target
+        if (app.debug && !frightened) {
+            app.stroke(255, 255, 255);
+            int targetX = this.targetX;
+            int targetY = this.targetY;
+            if (!this.targetScatter) {
+                targetX += this.magicOffset;
+                targetY += this.magicOffset;
+            }
+            int x = this.x + this.magicOffset;
+            int y = this.y + this.magicOffset;
+            app.line((float) x, (float) y, (float) targetX, (float) targetY);
+        }
 
         if (!sodaCanEffect && frightened && app.frameCount % 8 >= 0 && app.frameCount % 30 <= 8) {
             // Do not draw the sprite if it under the soda can effect
@@ -214,15 +364,34 @@ public abstract class Ghost extends Entity {
         }
     }
 
-    /** Finds the coordinates for where the ghost will move towards
-    @return Integer array containing the x and y coordinates
-    @param app Instance of the app
-    @param scatter The current scatter state
+    /** Gets the x coordinate of the designated corner when scattering
+    @return The x coordinate of the corner
     */
-    public abstract int[] targetMove(App app, boolean scatter);
-
-
+    public int getCornerX() {
+        return this.cornerX;
+    }
 
+    /** Gets the y coordinate of the designated corner when scattering
+    @return The y coordinate of the corner
+    */
+    public int getCornerY() {
+        return this.cornerY;
+    }
 
+    /** Gets the strategy deciding where the ghost targets
+    @return The shared strategy
+    */
+    public GhostStrategy getStrategy() {
+        return this.strategy;
+    }
 
+    /** Finds the coordinates for where the ghost will move towards
+    @return Integer array containing the x and y coordinates, reused by the next call
+    @param world The state of the game at the start of the tick
+    @param scatter The current scatter state
+    */
+    public int[] targetMove(WorldSnapshot world, boolean scatter) {
+        this.strategy.target(world, this.x, this.y, scatter, this.target);
+        return this.target;
+    }
 }
@@ -0,0 +1,76 @@
+package ghost;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+public class GhostStrategies {
+
+    /** Stores every strategy found on the class path, keyed by name, loaded the first time one is requested
+    */
+    private static Map<String, GhostStrategy> strategies;
+    /** Stores the name of the strategy each map character is bound to when the config does not say
+    */
+    private static Map<Character, String> defaultBindings;
+
+    /** Finds the strategies listed in META-INF/services/ghost.GhostStrategy by every jar on the class path.
+    When two strategies share a name, the first one found is kept.
+    */
+    private static synchronized void loadStrategies() {
+        if (strategies != null) {
+            return;
+        }
+        Map<String, GhostStrategy> found = new HashMap<String, GhostStrategy>();
+        Map<Character, String> bindings = new LinkedHashMap<Character, String>();
+        for (GhostStrategy strategy : ServiceLoader.load(GhostStrategy.class)) {
+            if (found.containsKey(strategy.getName())) {
+                continue;
+            }
+            found.put(strategy.getName(), strategy);
+            if (!bindings.containsKey(strategy.getDefaultCellID())) {
+                bindings.put(strategy.getDefaultCellID(), strategy.getName());
+            }
+        }
+        strategies = Collections.unmodifiableMap(found);
+        defaultBindings = Collections.unmodifiableMap(bindings);
+    }
+
+    /** Gets the strategy with the given name
+    @return The shared strategy, or null if no strategy has the name
+    @param name The name of the strategy
+    */
+    public static synchronized GhostStrategy get(String name) {
+        loadStrategies();
+        return strategies.get(name);
+    }
+
+    /** Gets the map character each strategy is bound to by default
+    @return The unmodifiable bindings of cell ID to strategy name
+    */
+    public static synchronized Map<Character, String> getDefaultBindings() {
+        loadStrategies();
+        return defaultBindings;
+    }
+
+    /** Resolves the bindings of a config into a table looked up by cell ID when a map is loaded
+    @return The strategy of each cell ID, null for the cell IDs that are not ghosts
+    @param bindings The name of the strategy bound to each map character
+    @throws IllegalArgumentException If a binding names a strategy that is not on the class path
+    */
+    public static GhostStrategy[] compile(Map<Character, String> bindings) {
+        GhostStrategy[] table = new GhostStrategy[128];
+        for (Map.Entry<Character, String> binding : bindings.entrySet()) {
+            char cellID = binding.getKey();
+            GhostStrategy strategy = get(binding.getValue());
+            if (strategy == null) {
+                throw new IllegalArgumentException("No ghost strategy named " + binding.getValue());
+            }
+            if (cellID < table.length) {
+                table[cellID] = strategy;
+            }
+        }
+        return table;
+    }
+}
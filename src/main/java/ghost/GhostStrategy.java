@@ -0,0 +1,41 @@
+package ghost;
+
+import game.*;
+
+public interface GhostStrategy {
+
+    /** Gets the name the strategy is bound to map characters by in the config
+    @return The name of the strategy
+    */
+    String getName();
+
+    /** Gets the map character the strategy is bound to when the config does not bind it
+    @return The default cell ID
+    */
+    char getDefaultCellID();
+
+    /** Gets the path of the sprite drawn for ghosts using the strategy
+    @return The path of the sprite resource
+    */
+    String getSprite();
+
+    /** Gets the x coordinate of the corner targeted while scattering
+    @return The x coordinate in pixels
+    */
+    int getCornerX();
+
+    /** Gets the y coordinate of the corner targeted while scattering
+    @return The y coordinate in pixels
+    */
+    int getCornerY();
+
+    /** Finds the coordinates a ghost will move towards.
+    Strategies are shared by every ghost and game using them, so they must not keep any state.
+    @param world The state of the game at the start of the tick
+    @param selfX The x coordinate of the ghost
+    @param selfY The y coordinate of the ghost
+    @param scatter The current scatter state
+    @param out The array the x and y coordinates of the target are written to
+    */
+    void target(WorldSnapshot world, int selfX, int selfY, boolean scatter, int[] out);
+}
@@ -1,51 +1,68 @@
 package ghost;
 
+import game.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import processing.core.PApplet;
-import processing.core.PImage;
+public class Ignorant implements GhostStrategy {
 
-import game.*;
+    /** The name the ignorant is bound by in the config
+    */
+    public static final String NAME = "ignorant";
 
-public class Ignorant extends Ghost {
+    /** Gets the name the strategy is bound to map characters by in the config
+    @return The name of the strategy
+    */
+    public String getName() {
+        return NAME;
+    }
 
-    /** Creates a new Ignorant object
-    @param x The x coordinate of the ignorant
-    @param y The y coordinate of the ignorant
-    @param cellID The cell ID corresponding to the ignorant
-    @param sprite The sprite of the ignorant
-    @param app Instance of the app
+    /** Gets the map character the strategy is bound to when the config does not bind it
+    @return The default cell ID
     */
-    public Ignorant(int x, int y, char cellID, PImage sprite, App app) {
-        super(x, y, cellID, sprite, app);
-        this.cornerX = 0;
-        this.cornerY = 576;
+    public char getDefaultCellID() {
+        return 'i';
     }
 
-    /** Finds the coordinates for where the ghost will move towards
-    @return Integer array containing the x and y coordinates
-    @param app Instance of the app
+    /** Gets the path of the sprite drawn for ghosts using the strategy
+    @return The path of the sprite resource
+    */
+    public String getSprite() {
+        return "src/main/resources/ignorant.png";
+    }
+
+    /** Gets the x coordinate of the corner targeted while scattering
+    @return The x coordinate in pixels
+    */
+    public int getCornerX() {
+        return 0;
+    }
+
+    /** Gets the y coordinate of the corner targeted while scattering
+    @return The y coordinate in pixels
+    */
+    public int getCornerY() {
+        return 576;
+    }
+
+    /** Finds the coordinates a ghost will move towards
+    @param world The state of the game at the start of the tick
+    @param selfX The x coordinate of the ghost
+    @param selfY The y coordinate of the ghost
     @param scatter The current scatter state
+    @param out The array the x and y coordinates of the target are written to
     */
-    public int[] targetMove(App app, boolean scatter) {
-        // Checks current scatter state, targets corner if true
-        if (scatter) {
-            return new int[] {0, 576};
-        }
+    public void target(WorldSnapshot world, int selfX, int selfY, boolean scatter, int[] out) {
         // If the waka is further away than 8 units, target the waka
-        boolean chase = false;
-        if ((int) getDistance(this.x, app.game.waka.getX(), this.y, app.game.waka.getY()) > 128) {
-            chase = true;
-        }
-
-        if (chase) {
+        // Compares squared distances, 129 being the smallest whole distance further than 8 units
+        int xVal = selfX - world.getWakaX();
+        int yVal = selfY - world.getWakaY();
+        if (!scatter && xVal * xVal + yVal * yVal >= 129 * 129) {
             // Target the waka's current position
-            return new int[] {app.game.waka.getX(), app.game.waka.getY()};
+            out[0] = world.getWakaX();
+            out[1] = world.getWakaY();
         } else {
-            // If the waka is closer than 8 units, target the designated corner
-            return new int[] {this.cornerX, this.cornerY};
+            // If scattering or the waka is closer than 8 units, target the designated corner
+            out[0] = 0;
+            out[1] = 576;
         }
     }
 }
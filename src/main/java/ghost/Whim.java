@@ -1,75 +1,93 @@
 package ghost;
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import processing.core.PApplet;
-import processing.core.PImage;
-
 import game.*;
 
-import java.util.stream.*;
+public class Whim implements GhostStrategy {
+
+    /** The name the whim is bound by in the config
+    */
+    public static final String NAME = "whim";
+
+    /** Gets the name the strategy is bound to map characters by in the config
+    @return The name of the strategy
+    */
+    public String getName() {
+        return NAME;
+    }
+
+    /** Gets the map character the strategy is bound to when the config does not bind it
+    @return The default cell ID
+    */
+    public char getDefaultCellID() {
+        return 'w';
+    }
+
+    /** Gets the path of the sprite drawn for ghosts using the strategy
+    @return The path of the sprite resource
+    */
+    public String getSprite() {
+        return "src/main/resources/whim.png";
+    }
 
-public class Whim extends Ghost {
+    /** Gets the x coordinate of the corner targeted while scattering
+    @return The x coordinate in pixels
+    */
+    public int getCornerX() {
+        return 448;
+    }
 
-    /** Creates a new Whim object
-    @param x The x coordinate of the whim
-    @param y The y coordinate of the whim
-    @param cellID The cell ID corresponding to the whim
-    @param sprite The sprite of the whim
-    @param app Instance of the app
+    /** Gets the y coordinate of the corner targeted while scattering
+    @return The y coordinate in pixels
     */
-    public Whim(int x, int y, char cellID, PImage sprite, App app) {
-        super(x, y, cellID, sprite, app);
-        this.cornerX = 448;
-        this.cornerY = 576;
+    public int getCornerY() {
+        return 576;
     }
 
-    /** Finds the coordinates for where the ghost will move towards
-    @return Integer array containing the x and y coordinates
-    @param app Instance of the app
+    /** Finds the coordinates a ghost will move towards
+    @param world The state of the game at the start of the tick
+    @param selfX The x coordinate of the ghost
+    @param selfY The y coordinate of the ghost
     @param scatter The current scatter state
+    @param out The array the x and y coordinates of the target are written to
     */
-    public int[] targetMove(App app, boolean scatter) {
+    public void target(WorldSnapshot world, int selfX, int selfY, boolean scatter, int[] out) {
         // Checks current scatter state, targets corner if true
         if (scatter) {
-            return new int[] {448, 576};
+            out[0] = 448;
+            out[1] = 576;
+            return;
         }
         // Gets the waka's direction and position
-        int wakaDirection = app.game.waka.getLastMove();
-        int wakaX = app.game.waka.getX();
-        int wakaY = app.game.waka.getY();
-        // Get the chaser object
-        List<Ghost> chasers = app.game.ghosts.stream()
-                                      .filter((g) -> g.getCellID() == 'c')
-                                      .collect(Collectors.toList());
-        if (chasers.size() == 0) {
-            return new int[] {wakaX, wakaY};
+        int wakaDirection = world.getWakaDirection();
+        int wakaX = world.getWakaX();
+        int wakaY = world.getWakaY();
+        // Get the first chaser from the registry, whichever map character it is bound to
+        int chaser = world.registry.getFirst(Chaser.NAME);
+        if (chaser == -1) {
+            out[0] = wakaX;
+            out[1] = wakaY;
+            return;
         }
-        Ghost chaser = chasers.get(0);
-        // Get the chaser's position
-        int ghostX = chaser.getX();
-        int ghostY = chaser.getY();
+        // Get the chaser's position at the start of the tick
+        int ghostX = world.getGhostX(chaser);
+        int ghostY = world.getGhostY(chaser);
 
         // Construct a vector given the current direction of the waka and the chaser
-        // Double this vector
         if (wakaDirection == 38) {
             // UP
             wakaY -= 32;
-            return new int[] {ghostX + 2*(wakaX - ghostX), ghostY + 2*(wakaY - ghostY)};
         } else if (wakaDirection == 37) {
             // LEFT
             wakaX -= 32;
-            return new int[] {ghostX + 2*(wakaX - ghostX), ghostY + 2*(wakaY - ghostY)};
         } else if (wakaDirection == 40) {
             // DOWN
             wakaY += 32;
-            return new int[] {ghostX + 2*(wakaX - ghostX), ghostY + 2*(wakaY - ghostY)};
         } else {
             // RIGHT
             wakaX += 32;
-            return new int[] {ghostX + 2*(wakaX - ghostX), ghostY + 2*(wakaY - ghostY)};
         }
+        // Double this vector
+        out[0] = ghostX + 2*(wakaX - ghostX);
+        out[1] = ghostY + 2*(wakaY - ghostY);
     }
 }
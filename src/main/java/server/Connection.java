@@ -0,0 +1,108 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+public class Connection {
+
+    /** The most frames queued for a client before it is dropped for falling behind, ten seconds of ticks
+    */
+    public static final int MAX_QUEUED_FRAMES = 600;
+
+    /** Stores the channel of the client
+    */
+    public final SocketChannel channel;
+    /** Stores the key the channel is registered with the server's selector under
+    */
+    private final SelectionKey key;
+    /** Stores the bytes read from the client that do not yet make up a whole frame
+    */
+    private final ByteBuffer in;
+    /** Stores the frames waiting to be written once the client can take them
+    */
+    private final ArrayDeque<ByteBuffer> out;
+    /** Stores the session the client has joined, or null until it has
+    */
+    public Session session;
+
+    /** Constructs a connection for an accepted client
+    @param channel The channel of the client
+    @param key The key the channel is registered under
+    */
+    public Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+        this.in = ByteBuffer.allocate(4 * (4 + Protocol.MAX_CLIENT_FRAME));
+        this.out = new ArrayDeque<ByteBuffer>();
+        this.session = null;
+    }
+
+    /** Reads whatever the client has sent
+    @return The buffer holding the bytes read, flipped for reading, or null if the client has disconnected
+    @throws IOException If the channel could not be read
+    */
+    public ByteBuffer read() throws IOException {
+        if (this.channel.read(this.in) == -1) {
+            return null;
+        }
+        this.in.flip();
+        return this.in;
+    }
+
+    /** Keeps the bytes of an incomplete frame for the next read, after the whole frames have been handled
+    */
+    public void compact() {
+        this.in.compact();
+    }
+
+    /** Sends a frame, writing as much as the client will take straight away and queueing the rest
+    @param frame The frame to send
+    @throws IOException If the client has fallen too far behind or the channel could not be written
+    */
+    public void send(ByteBuffer frame) throws IOException {
+        if (this.out.isEmpty()) {
+            this.channel.write(frame);
+            if (!frame.hasRemaining()) {
+                return;
+            }
+        }
+        if (this.out.size() >= MAX_QUEUED_FRAMES) {
+            // Frames are deltas, so a client that misses one can never catch up
+            throw new IOException("Client fell too far behind");
+        }
+        this.out.add(frame);
+        this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /** Writes the queued frames once the client can take more
+    @throws IOException If the channel could not be written
+    */
+    public void flush() throws IOException {
+        while (!this.out.isEmpty()) {
+            ByteBuffer frame = this.out.peek();
+            this.channel.write(frame);
+            if (frame.hasRemaining()) {
+                return;
+            }
+            this.out.poll();
+        }
+        this.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /** Closes the connection, leaving its session
+    */
+    public void close() {
+        if (this.session != null) {
+            this.session.leave(this);
+        }
+        this.key.cancel();
+        try {
+            this.channel.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
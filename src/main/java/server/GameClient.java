@@ -0,0 +1,306 @@
+package server;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import game.*;
+import ghost.*;
+import waka.*;
+
+public class GameClient implements Runnable {
+
+    /** The largest frame accepted from the server, far more than a snapshot of any map needs
+    */
+    public static final int MAX_SERVER_FRAME = 16 * 1024 * 1024;
+
+    /** Stores the app the mirrored game is drawn by, or null to mirror it headless
+    */
+    private final App app;
+    /** Stores the frames received but not yet applied, in the order they arrived
+    */
+    private final ConcurrentLinkedQueue<byte[]> frames;
+    /** Stores the channel to the server
+    */
+    private SocketChannel channel;
+    /** Stores the stream frames are read from by the reader thread
+    */
+    private DataInputStream in;
+    /** Stores the frame sent for every key press, reused under the client's lock
+    */
+    private final ByteBuffer keyFrame;
+    /** Stores whether the connection is still open
+    */
+    private volatile boolean connected;
+
+    /** Stores the game mirrored from the server, or null until the first snapshot has been applied
+    */
+    private Game game;
+    /** Stores the ID of the session the client has joined
+    */
+    private int sessionID;
+
+    /** Constructs a client that is not yet connected
+    @param app The app the mirrored game is drawn by, or null to mirror it headless
+    */
+    public GameClient(App app) {
+        this.app = app;
+        this.frames = new ConcurrentLinkedQueue<byte[]>();
+        this.keyFrame = ByteBuffer.allocate(4 + Protocol.KEY_LENGTH);
+        this.connected = false;
+        this.game = null;
+        this.sessionID = Protocol.NEW_SESSION;
+    }
+
+    /** Connects to a server and joins a session, reading its frames on a background thread
+    @param host The host name of the server
+    @param port The port of the server
+    @param sessionID The ID of the session to join, or Protocol.NEW_SESSION to start one
+    @throws IOException If the server could not be reached
+    */
+    public void connect(String host, int port, int sessionID) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.in = new DataInputStream(Channels.newInputStream(this.channel));
+        this.connected = true;
+        write(Protocol.join(sessionID));
+        Thread reader = new Thread(this, "game-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /** Reads frames from the server until the connection closes, queueing them to be applied by update
+    */
+    public void run() {
+        try {
+            while (this.connected) {
+                int length = this.in.readInt();
+                if (length <= 0 || length > MAX_SERVER_FRAME) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                byte[] frame = new byte[length];
+                this.in.readFully(frame);
+                this.frames.add(frame);
+            }
+        } catch (EOFException eofe) {
+            // The server closed the connection
+        } catch (IOException ioe) {
+            if (this.connected) {
+                ioe.printStackTrace();
+            }
+        } finally {
+            this.connected = false;
+        }
+    }
+
+    /** Sends a key press to the server, which handles it on its next tick
+    @param keyCode The key code of the key pressed
+    */
+    public synchronized void sendKey(int keyCode) {
+        if (!this.connected || keyCode <= 0 || keyCode > 0xFF) {
+            return;
+        }
+        this.keyFrame.clear();
+        this.keyFrame.putInt(Protocol.KEY_LENGTH);
+        this.keyFrame.put(Protocol.KEY);
+        this.keyFrame.put((byte) keyCode);
+        this.keyFrame.flip();
+        try {
+            write(this.keyFrame);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /** Writes a whole frame to the server
+    @param frame The frame to write
+    @throws IOException If the frame could not be written
+    */
+    private synchronized void write(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            this.channel.write(frame);
+        }
+    }
+
+    /** Applies every frame received since the last call, on the thread that draws the game
+    @return The mirrored game, which is replaced whenever the server starts a new round, or null before the first snapshot
+    @throws IOException If the server sent a frame that could not be understood
+    */
+    public Game update() throws IOException {
+        byte[] frame = this.frames.poll();
+        while (frame != null) {
+            apply(new DataInputStream(new ByteArrayInputStream(frame)));
+            frame = this.frames.poll();
+        }
+        return this.game;
+    }
+
+    /** Waits for the first snapshot from the server
+    @return The mirrored game
+    @param timeoutMillis How long to wait for, in milliseconds
+    @throws IOException If the connection closed or no snapshot arrived in time
+    */
+    public Game awaitGame(long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (update() == null) {
+            if (!this.connected && this.frames.isEmpty()) {
+                throw new IOException("Server closed the connection before sending the game");
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IOException("Timed out waiting for the game");
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for the game", ie);
+            }
+        }
+        return this.game;
+    }
+
+    /** Applies a single frame to the mirrored game
+    @param in The frame, positioned at its type
+    @throws IOException If the frame could not be understood
+    */
+    private void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == Protocol.SNAPSHOT) {
+            applySnapshot(in);
+        } else if (type == Protocol.ERROR) {
+            throw new IOException("Server refused to join: " + in.readUTF());
+        } else if (this.game == null) {
+            throw new IOException("Frame " + type + " arrived before the game");
+        } else if (type == Protocol.DELTA) {
+            applyDelta(in);
+        } else if (type == Protocol.END) {
+            // Shows the win or lose screen until the next round's snapshot arrives
+            this.game.resetGame = true;
+        } else {
+            throw new IOException("Unknown frame " + type);
+        }
+    }
+
+    /** Replaces the mirrored game with the one in a snapshot
+    @param in The snapshot, positioned after its type
+    @throws IOException If the snapshot could not be read
+    */
+    private void applySnapshot(DataInputStream in) throws IOException {
+        this.sessionID = in.readInt();
+        int tick = in.readInt();
+        int lives = in.readShort();
+        int flags = in.readUnsignedByte();
+        int modeCursor = in.readUnsignedByte();
+        int width = in.readUnsignedShort();
+        int height = in.readUnsignedShort();
+        byte[] tiles = new byte[width * height];
+        in.readFully(tiles);
+        Map<Character, String> ghostTypes = new LinkedHashMap<Character, String>();
+        int bindings = in.readUnsignedByte();
+        for (int i = 0; i < bindings; i++) {
+            char cellID = (char) in.readUnsignedByte();
+            ghostTypes.put(cellID, in.readUTF());
+        }
+
+        // The spawn cells create the same entities in the same order as on the server
+        Game next = new Game(this.app);
+        next.ghostTypes = ghostTypes;
+        try {
+            next.loadBoard(new Board(width, height, tiles));
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Snapshot could not be loaded: " + iae.getMessage(), iae);
+        }
+        if (next.waka == null || in.readUnsignedShort() != 1 + next.ghosts.size()) {
+            throw new IOException("Snapshot entities do not match its map");
+        }
+        next.tick = tick;
+        next.lives = lives;
+        next.startingLives = lives;
+        next.modes.apply(Protocol.fromFlags(flags, modeCursor));
+        for (int i = 0; i < 1 + next.ghosts.size(); i++) {
+            applyEntity(next, i, in);
+        }
+        this.game = next;
+    }
+
+    /** Applies the changes in a delta to the mirrored game
+    @param in The delta, positioned after its type
+    @throws IOException If the delta could not be read
+    */
+    private void applyDelta(DataInputStream in) throws IOException {
+        this.game.tick = in.readInt();
+        this.game.lives = in.readShort();
+        int flags = in.readUnsignedByte();
+        int modeCursor = in.readUnsignedByte();
+        ModeSnapshot mode = this.game.modes.getSnapshot();
+        if (flags != Protocol.toFlags(mode) || modeCursor != mode.modeCursor) {
+            this.game.modes.apply(Protocol.fromFlags(flags, modeCursor));
+        }
+        int changed = in.readUnsignedShort();
+        for (int i = 0; i < changed; i++) {
+            int index = in.readUnsignedShort();
+            if (index > this.game.ghosts.size()) {
+                throw new IOException("Delta names entity " + index + " of " + (1 + this.game.ghosts.size()));
+            }
+            applyEntity(this.game, index, in);
+        }
+        // Eating the tiles updates the board, the maze layer and the fruit count through the listeners
+        int consumed = in.readUnsignedShort();
+        for (int i = 0; i < consumed; i++) {
+            int col = in.readUnsignedShort();
+            int row = in.readUnsignedShort();
+            this.game.consumables.consume(col, row);
+        }
+    }
+
+    /** Reads the position and state of an entity into the mirrored game
+    @param game The mirrored game
+    @param index The index of the entity, 0 for the waka and the ghost before it otherwise
+    @param in The stream positioned at the entity
+    @throws IOException If the entity could not be read
+    */
+    private void applyEntity(Game game, int index, DataInputStream in) throws IOException {
+        Entity entity = index == 0 ? game.waka : game.ghosts.get(index - 1);
+        entity.setX(in.readShort());
+        entity.setY(in.readShort());
+        int lastMove = in.readUnsignedByte();
+        entity.setLastMove(lastMove);
+        entity.setAlive(in.readUnsignedByte() != 0);
+        if (entity instanceof Waka) {
+            ((Waka) entity).updateSprite(lastMove);
+        }
+    }
+
+    /** Gets the ID of the session the client has joined
+    @return The session ID, or Protocol.NEW_SESSION before the first snapshot
+    */
+    public int getSessionID() {
+        return this.sessionID;
+    }
+
+    /** Checks whether the connection to the server is still open
+    @return True if the client is connected
+    */
+    public boolean isConnected() {
+        return this.connected;
+    }
+
+    /** Closes the connection to the server
+    */
+    public void close() {
+        this.connected = false;
+        try {
+            this.channel.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
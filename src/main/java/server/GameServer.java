@@ -0,0 +1,316 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import game.*;
+
+public class GameServer implements Runnable {
+
+    /** Stores the settings every session is played with
+    */
+    private final GameConfig config;
+    /** Stores the board of the map, read once and copied by every session
+    */
+    private final Board board;
+    /** Stores the selector waiting on the server and client channels
+    */
+    private final Selector selector;
+    /** Stores the channel accepting clients
+    */
+    private final ServerSocketChannel serverChannel;
+    /** Stores the sessions being played, keyed by their ID
+    */
+    private final Map<Integer, Session> sessions;
+    /** Stores the ID given to the next new session
+    */
+    private int nextSessionID;
+    /** Stores the real time the next tick is due, in nanoseconds
+    */
+    private long nextTick;
+    /** Stores whether the server should keep running
+    */
+    private volatile boolean running;
+
+    /** Constructs a server listening on the given address.
+    Every session runs on the server's single thread, so no game is ever touched by two threads.
+    @param config The settings every session is played with
+    @param address The address to listen on, port 0 picking any free port
+    @throws IOException If the map could not be read or the address could not be bound
+    @throws IllegalArgumentException If the map has no waka
+    */
+    public GameServer(GameConfig config, InetSocketAddress address) throws IOException {
+        this.config = config;
+        this.board = Game.readBoard(config.getMap(), config.getCellIDs());
+        // Fails now rather than when the first client joins
+        if (!hasWaka(this.board)) {
+            throw new IllegalArgumentException("Map has no waka: " + config.getMap());
+        }
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        this.sessions = new HashMap<Integer, Session>();
+        this.nextSessionID = 1;
+        this.running = true;
+    }
+
+    /** Checks whether a board has a starting position for the waka
+    @return True if the board has a waka cell
+    @param board The board to check
+    */
+    private static boolean hasWaka(Board board) {
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int col = 0; col < board.getWidth(); col++) {
+                if (board.getCellID(col, row) == 'p') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Gets the port the server is listening on
+    @return The port
+    */
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /** Gets the number of sessions being played
+    @return The number of sessions, only exact when read from the server's thread
+    */
+    public int getSessionCount() {
+        return this.sessions.size();
+    }
+
+    /** Gets a session by its ID
+    @return The session, or null if there is no session with the ID, which must only be used from the server's thread
+    @param id The ID of the session
+    */
+    public Session getSession(int id) {
+        return this.sessions.get(id);
+    }
+
+    /** Runs the server until it is closed, ticking every session at the game's fixed tick rate.
+    Between ticks the thread waits on the selector, handling clients as they connect and send key presses.
+    */
+    public void run() {
+        this.nextTick = System.nanoTime() + Simulation.NANOS_PER_TICK;
+        try {
+            while (this.running) {
+                long wait = this.nextTick - System.nanoTime();
+                if (wait > 1000000L) {
+                    this.selector.select(wait / 1000000L);
+                } else {
+                    this.selector.selectNow();
+                }
+                handleKeys();
+                long now = System.nanoTime();
+                // Catch up on missed ticks, but never more than the simulation would
+                int ticks = 0;
+                while (now >= this.nextTick && ticks < Simulation.MAX_CATCH_UP_TICKS) {
+                    tickSessions();
+                    this.nextTick += Simulation.NANOS_PER_TICK;
+                    ticks += 1;
+                }
+                if (now >= this.nextTick) {
+                    this.nextTick = now + Simulation.NANOS_PER_TICK;
+                }
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        } finally {
+            closeChannels();
+        }
+    }
+
+    /** Handles the channels the selector found ready
+    @throws IOException If a new client could not be accepted
+    */
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isReadable() && !read(connection)) {
+                    connection.close();
+                }
+            } catch (IOException ioe) {
+                // A client that cannot be read or written is dropped, the rest carry on
+                connection.close();
+            } catch (RuntimeException re) {
+                // Nothing a single client sends may stop the other sessions
+                re.printStackTrace();
+                connection.close();
+            }
+        }
+    }
+
+    /** Accepts a waiting client
+    @throws IOException If the client could not be registered
+    */
+    private void accept() throws IOException {
+        SocketChannel channel = this.serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    /** Reads and handles the whole frames a client has sent
+    @return False if the client disconnected or sent something invalid
+    @param connection The connection of the client
+    @throws IOException If the channel could not be read or written
+    */
+    private boolean read(Connection connection) throws IOException {
+        ByteBuffer in = connection.read();
+        if (in == null) {
+            return false;
+        }
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length <= 0 || length > Protocol.MAX_CLIENT_FRAME) {
+                return false;
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            in.getInt();
+            int end = in.position() + length;
+            boolean valid = handleFrame(connection, in, length);
+            in.position(end);
+            if (!valid) {
+                return false;
+            }
+        }
+        connection.compact();
+        return true;
+    }
+
+    /** Handles a single frame from a client
+    @return False if the frame was not valid for the client
+    @param connection The connection of the client
+    @param in The buffer positioned at the frame type
+    @param length The length of the frame, including its type
+    @throws IOException If a reply could not be written
+    */
+    private boolean handleFrame(Connection connection, ByteBuffer in, int length) throws IOException {
+        byte type = in.get();
+        // Frames too short for their payload are rejected before any of it is read
+        if (type == Protocol.JOIN && length >= Protocol.JOIN_LENGTH && connection.session == null) {
+            int version = in.get() & 0xFF;
+            int sessionID = in.getInt();
+            if (version != Protocol.VERSION) {
+                connection.send(Protocol.error("Unsupported protocol version " + version + ", the server speaks " + Protocol.VERSION));
+                return false;
+            }
+            Session session = sessionID == Protocol.NEW_SESSION ? createSession() : this.sessions.get(sessionID);
+            if (session == null) {
+                connection.send(Protocol.error("No session " + sessionID));
+                return false;
+            }
+            connection.session = session;
+            session.join(connection);
+            return true;
+        }
+        if (type == Protocol.KEY && length >= Protocol.KEY_LENGTH && connection.session != null) {
+            connection.session.key(in.get() & 0xFF);
+            return true;
+        }
+        return false;
+    }
+
+    /** Starts a new session with a new seed
+    @return The session
+    */
+    private Session createSession() {
+        Session session = new Session(this.nextSessionID, this.config, this.board, System.nanoTime());
+        this.sessions.put(session.id, session);
+        this.nextSessionID += 1;
+        return session;
+    }
+
+    /** Ticks every session, ending the ones every player has left
+    */
+    private void tickSessions() {
+        List<Integer> finished = new ArrayList<Integer>();
+        for (Session session : this.sessions.values()) {
+            if (session.isEmpty()) {
+                finished.add(session.id);
+                continue;
+            }
+            try {
+                session.tick();
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
+        }
+        for (int id : finished) {
+            this.sessions.remove(id);
+        }
+    }
+
+    /** Stops the server, closing every client once the current tick has finished
+    */
+    public void close() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    /** Closes the server and client channels
+    */
+    private void closeChannels() {
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            this.serverChannel.close();
+            this.selector.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /** Runs a server with the settings in the config file, on the port given as the first argument
+    @param args The port to listen on, or nothing for the default port
+    */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        try {
+            GameServer server = new GameServer(GameConfig.load(GameConfig.DEFAULT_PATH), new InetSocketAddress(port));
+            System.out.println("Serving " + server.config.getMap() + " on port " + server.getPort());
+            server.run();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
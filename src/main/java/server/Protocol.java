@@ -0,0 +1,183 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import game.*;
+import ghost.*;
+
+public class Protocol {
+
+    /** The port the server listens on unless told otherwise
+    */
+    public static final int DEFAULT_PORT = 7460;
+    /** The version of the protocol, sent by clients when they join
+    */
+    public static final int VERSION = 1;
+    /** The largest frame a client may send, every client frame is only a few bytes
+    */
+    public static final int MAX_CLIENT_FRAME = 64;
+
+    /** Client frame asking to join a session: version byte, then the session ID or NEW_SESSION
+    */
+    public static final byte JOIN = 1;
+    /** Client frame carrying a key press: the key code as an unsigned byte
+    */
+    public static final byte KEY = 2;
+
+    /** The length of a JOIN frame, including its type
+    */
+    public static final int JOIN_LENGTH = 6;
+    /** The length of a KEY frame, including its type
+    */
+    public static final int KEY_LENGTH = 2;
+
+    /** Server frame with the whole state of a session, sent when joining and when a new round starts
+    */
+    public static final byte SNAPSHOT = 10;
+    /** Server frame with what changed in a session during a tick
+    */
+    public static final byte DELTA = 11;
+    /** Server frame sent once a round is won or lost: 1 if it was won, otherwise 0
+    */
+    public static final byte END = 12;
+    /** Server frame refusing a join: the reason as a UTF string
+    */
+    public static final byte ERROR = 13;
+
+    /** The session ID asking the server to start a new session
+    */
+    public static final int NEW_SESSION = -1;
+
+    /** The bit set in the mode flags while the ghosts are scattering
+    */
+    public static final int SCATTER = 1;
+    /** The bit set in the mode flags while the ghosts are frightened
+    */
+    public static final int FRIGHTENED = 2;
+    /** The bit set in the mode flags while the ghosts are invisible
+    */
+    public static final int INVISIBLE = 4;
+
+    /** Wraps a frame written to a stream in its length prefix.
+    Every frame is a four byte length, followed by that many bytes starting with the frame type.
+    @return The frame, ready to be written to a channel
+    @param bytes The frame type and payload
+    */
+    public static ByteBuffer frame(ByteArrayOutputStream bytes) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + bytes.size());
+        frame.putInt(bytes.size());
+        frame.put(bytes.toByteArray());
+        frame.flip();
+        return frame;
+    }
+
+    /** Packs the mode of the ghosts into flag bits
+    @return The mode flags
+    @param mode The mode of the ghosts
+    */
+    public static int toFlags(ModeSnapshot mode) {
+        return (mode.scatter ? SCATTER : 0) | (mode.frightened ? FRIGHTENED : 0) | (mode.invisible ? INVISIBLE : 0);
+    }
+
+    /** Unpacks the mode of the ghosts from flag bits
+    @return The mode of the ghosts
+    @param flags The mode flags
+    @param modeCursor The index of the current scatter or chase mode
+    */
+    public static ModeSnapshot fromFlags(int flags, int modeCursor) {
+        return new ModeSnapshot((flags & SCATTER) != 0, (flags & FRIGHTENED) != 0, (flags & INVISIBLE) != 0, modeCursor);
+    }
+
+    /** Writes the whole state of a game.
+    The board is sent with its spawn cells, so the client creates the waka and ghosts in the same order as the server,
+    and the entities are then listed in that order, waka first.
+    @param out The stream to write to
+    @param sessionID The ID of the session the game belongs to
+    @param game The game to write
+    @throws IOException If the state could not be written
+    */
+    public static void writeSnapshot(DataOutputStream out, int sessionID, Game game) throws IOException {
+        out.writeByte(SNAPSHOT);
+        out.writeInt(sessionID);
+        out.writeInt(game.tick);
+        out.writeShort(game.lives);
+        ModeSnapshot mode = game.modes.getSnapshot();
+        out.writeByte(toFlags(mode));
+        out.writeByte(mode.modeCursor);
+        Board board = game.board;
+        out.writeShort(board.getWidth());
+        out.writeShort(board.getHeight());
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int col = 0; col < board.getWidth(); col++) {
+                out.writeByte(board.getCellID(col, row));
+            }
+        }
+        out.writeByte(game.ghostTypes.size());
+        for (Map.Entry<Character, String> binding : game.ghostTypes.entrySet()) {
+            out.writeByte(binding.getKey());
+            out.writeUTF(binding.getValue());
+        }
+        out.writeShort(1 + game.ghosts.size());
+        writeEntity(out, game.waka);
+        for (Ghost ghost : game.ghosts) {
+            writeEntity(out, ghost);
+        }
+    }
+
+    /** Writes the position and state of an entity
+    @param out The stream to write to
+    @param entity The entity to write
+    @throws IOException If the entity could not be written
+    */
+    private static void writeEntity(DataOutputStream out, Entity entity) throws IOException {
+        out.writeShort(entity.getX());
+        out.writeShort(entity.getY());
+        out.writeByte(entity.getLastMove());
+        out.writeByte(entity.isAlive() ? 1 : 0);
+    }
+
+    /** Writes a frame with no payload other than a single byte
+    @return The frame
+    @param type The frame type
+    @param value The byte following the type
+    */
+    public static ByteBuffer byteFrame(byte type, int value) {
+        ByteBuffer frame = ByteBuffer.allocate(6);
+        frame.putInt(2);
+        frame.put(type);
+        frame.put((byte) value);
+        frame.flip();
+        return frame;
+    }
+
+    /** Writes the frame refusing a client's join
+    @return The frame
+    @param reason Why the join was refused
+    @throws IOException If the reason could not be written
+    */
+    public static ByteBuffer error(String reason) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ERROR);
+        out.writeUTF(reason);
+        return frame(bytes);
+    }
+
+    /** Writes the frame a client sends to join a session
+    @return The frame
+    @param sessionID The ID of the session to join, or NEW_SESSION to start one
+    */
+    public static ByteBuffer join(int sessionID) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + JOIN_LENGTH);
+        frame.putInt(JOIN_LENGTH);
+        frame.put(JOIN);
+        frame.put((byte) VERSION);
+        frame.putInt(sessionID);
+        frame.flip();
+        return frame;
+    }
+}
@@ -0,0 +1,271 @@
+package server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import game.*;
+import ghost.*;
+
+public class Session {
+
+    /** The number of ticks the win or lose screen is shown for before the next round, matching the app's end screen
+    */
+    public static final int END_SCREEN_TICKS = App.END_SCREEN_LENGTH * Simulation.TICKS_PER_SECOND / 1000;
+
+    /** Stores the ID clients join the session by
+    */
+    public final int id;
+    /** Stores the game being played, which only the server's thread touches
+    */
+    private final Game game;
+    /** Stores the simulation ticking the game
+    */
+    private final Simulation simulation;
+    /** Stores the connections of the players in the session
+    */
+    private final List<Connection> players;
+
+    /** Stores the x coordinate of every entity as last sent, waka first
+    */
+    private final int[] sentX;
+    /** Stores the y coordinate of every entity as last sent
+    */
+    private final int[] sentY;
+    /** Stores the last move of every entity as last sent
+    */
+    private final int[] sentMove;
+    /** Stores whether every entity was alive as last sent
+    */
+    private final boolean[] sentAlive;
+
+    /** Stores the column and row of every tile eaten since the last delta, packed as col << 16 | row
+    */
+    private int[] consumed;
+    /** Stores the number of tiles eaten since the last delta
+    */
+    private int consumedCount;
+    /** Stores the number of ticks the end screen has been shown for, or -1 while a round is being played
+    */
+    private int endTicks;
+
+    /** Stores the stream frames are written to, reused every tick
+    */
+    private final ByteArrayOutputStream bytes;
+    /** Stores the stream over the reused bytes
+    */
+    private final DataOutputStream out;
+
+    /** Constructs a session playing a new headless game
+    @param id The ID clients join the session by
+    @param config The settings of the game
+    @param board The board of the map, which is copied rather than changed
+    @param seed The seed of the game
+    @throws IllegalArgumentException If the map has no waka
+    */
+    public Session(int id, GameConfig config, Board board, long seed) {
+        this.id = id;
+        this.game = BatchRunner.createGame(new BatchJob(config, seed, Integer.MAX_VALUE), board);
+        if (this.game.waka == null) {
+            throw new IllegalArgumentException("Map has no waka: " + config.getMap());
+        }
+        this.simulation = new Simulation(this.game);
+        this.players = new ArrayList<Connection>();
+        int entities = 1 + this.game.ghosts.size();
+        this.sentX = new int[entities];
+        this.sentY = new int[entities];
+        this.sentMove = new int[entities];
+        this.sentAlive = new boolean[entities];
+        this.consumed = new int[16];
+        this.consumedCount = 0;
+        this.endTicks = -1;
+        this.bytes = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.bytes);
+        // Collects the tiles the waka eats, so only those are sent rather than the whole board
+        this.game.consumables.addListener(new ConsumableListener() {
+            public void consumed(int col, int row, char cellID) {
+                if (consumedCount == consumed.length) {
+                    consumed = Arrays.copyOf(consumed, consumedCount * 2);
+                }
+                consumed[consumedCount] = (col << 16) | row;
+                consumedCount += 1;
+            }
+        });
+        remember();
+    }
+
+    /** Adds a player to the session, sending them the whole state of the game
+    @param connection The connection of the player
+    @throws IOException If the state could not be written
+    */
+    public void join(Connection connection) throws IOException {
+        this.players.add(connection);
+        connection.send(snapshot());
+    }
+
+    /** Removes a player from the session
+    @param connection The connection of the player
+    */
+    public void leave(Connection connection) {
+        this.players.remove(connection);
+    }
+
+    /** Checks whether anyone is still playing in the session
+    @return True if the session has no players left
+    */
+    public boolean isEmpty() {
+        return this.players.isEmpty();
+    }
+
+    /** Queues a key press from one of the players for the next tick.
+    Every player in the session steers the same waka.
+    @param keyCode The key code of the key pressed
+    */
+    public void key(int keyCode) {
+        if (this.endTicks == -1) {
+            this.game.inputQueue.offer(keyCode, System.nanoTime());
+        }
+    }
+
+    /** Advances the game by one tick and sends the players what changed.
+    Once a round is over the end frame is sent, and after the end screen a new round starts with a new snapshot.
+    @throws IOException If a frame could not be written
+    */
+    public void tick() throws IOException {
+        if (this.endTicks >= 0) {
+            this.endTicks += 1;
+            if (this.endTicks >= END_SCREEN_TICKS) {
+                this.endTicks = -1;
+                this.game.seed = System.nanoTime();
+                this.game.restart();
+                this.consumedCount = 0;
+                remember();
+                broadcast(snapshot());
+            }
+            return;
+        }
+        boolean running = this.simulation.step();
+        broadcast(delta());
+        if (!running) {
+            this.endTicks = 0;
+            broadcast(Protocol.byteFrame(Protocol.END, this.game.isWon() ? 1 : 0));
+        }
+    }
+
+    /** Sends a frame to every player in the session, dropping any player it cannot be sent to
+    @param frame The frame to send, which is shared rather than copied
+    */
+    private void broadcast(ByteBuffer frame) {
+        List<Connection> dropped = null;
+        for (Connection player : this.players) {
+            try {
+                player.send(frame.duplicate());
+            } catch (IOException ioe) {
+                if (dropped == null) {
+                    dropped = new ArrayList<Connection>();
+                }
+                dropped.add(player);
+            }
+        }
+        if (dropped != null) {
+            for (Connection player : dropped) {
+                player.close();
+            }
+        }
+    }
+
+    /** Writes the whole state of the game
+    @return The snapshot frame
+    @throws IOException If the state could not be written
+    */
+    private ByteBuffer snapshot() throws IOException {
+        this.bytes.reset();
+        Protocol.writeSnapshot(this.out, this.id, this.game);
+        return Protocol.frame(this.bytes);
+    }
+
+    /** Writes the entities that moved or changed state and the tiles eaten since the last delta.
+    Each changed entity is its index, position, last move and whether it is alive, eaten tiles are their column and row.
+    @return The delta frame
+    @throws IOException If the delta could not be written
+    */
+    private ByteBuffer delta() throws IOException {
+        this.bytes.reset();
+        this.out.writeByte(Protocol.DELTA);
+        this.out.writeInt(this.game.tick);
+        this.out.writeShort(this.game.lives);
+        ModeSnapshot mode = this.game.modes.getSnapshot();
+        this.out.writeByte(Protocol.toFlags(mode));
+        this.out.writeByte(mode.modeCursor);
+
+        // Count the changed entities first, so the count can lead the list
+        int changed = 0;
+        for (int i = 0; i < this.sentX.length; i++) {
+            if (hasChanged(i)) {
+                changed += 1;
+            }
+        }
+        this.out.writeShort(changed);
+        for (int i = 0; i < this.sentX.length; i++) {
+            if (!hasChanged(i)) {
+                continue;
+            }
+            Entity entity = getEntity(i);
+            this.out.writeShort(i);
+            this.out.writeShort(entity.getX());
+            this.out.writeShort(entity.getY());
+            this.out.writeByte(entity.getLastMove());
+            this.out.writeByte(entity.isAlive() ? 1 : 0);
+        }
+        remember();
+
+        this.out.writeShort(this.consumedCount);
+        for (int i = 0; i < this.consumedCount; i++) {
+            this.out.writeShort(this.consumed[i] >>> 16);
+            this.out.writeShort(this.consumed[i] & 0xFFFF);
+        }
+        this.consumedCount = 0;
+        return Protocol.frame(this.bytes);
+    }
+
+    /** Gets an entity by its index in the protocol
+    @return The waka for index 0, otherwise the ghost before it
+    @param index The index of the entity
+    */
+    private Entity getEntity(int index) {
+        return index == 0 ? this.game.waka : this.game.ghosts.get(index - 1);
+    }
+
+    /** Checks whether an entity has changed since it was last sent
+    @return True if the entity needs to be sent
+    @param index The index of the entity
+    */
+    private boolean hasChanged(int index) {
+        Entity entity = getEntity(index);
+        return entity.getX() != this.sentX[index] || entity.getY() != this.sentY[index]
+            || entity.getLastMove() != this.sentMove[index] || entity.isAlive() != this.sentAlive[index];
+    }
+
+    /** Remembers the state of every entity as the players now see it
+    */
+    private void remember() {
+        for (int i = 0; i < this.sentX.length; i++) {
+            Entity entity = getEntity(i);
+            this.sentX[i] = entity.getX();
+            this.sentY[i] = entity.getY();
+            this.sentMove[i] = entity.getLastMove();
+            this.sentAlive[i] = entity.isAlive();
+        }
+    }
+
+    /** Gets the game being played, which must only be read from the server's thread
+    @return The game
+    */
+    public Game getGame() {
+        return this.game;
+    }
+}
@@ -36,38 +36,42 @@ public class Waka extends Entity {
     @param y The y coordinate of the waka
     @param cellID The cell ID corresponding to the waka
     @param sprite The sprite of the waka
-    @param app Instance of the app
+    @param game Instance of the game
     */
-    public Waka(int x, int y, char cellID, PImage sprite, App app) {
-        super(x, y, cellID, sprite, app);
+    public Waka(int x, int y, char cellID, PImage sprite, Game game) {
+        super(x, y, cellID, sprite, game);
 
         this.lastMove = 37;
 
-        this.playerUp = this.app.loadImage("src/main/resources/playerUp.png");
-        this.playerDown = this.app.loadImage("src/main/resources/playerDown.png");
-        this.playerLeft = this.app.loadImage("src/main/resources/playerLeft.png");
-        this.playerRight = this.app.loadImage("src/main/resources/playerRight.png");
-        this.playerClosed = this.app.loadImage("src/main/resources/playerClosed.png");
-        this.playerLife = this.app.loadImage("src/main/resources/playerRight.png");
-        this.playerLife.resize(30, 30);
+        this.playerUp = SpriteCache.get(game.app, "src/main/resources/playerUp.png");
+        this.playerDown = SpriteCache.get(game.app, "src/main/resources/playerDown.png");
+        this.playerLeft = SpriteCache.get(game.app, "src/main/resources/playerLeft.png");
+        this.playerRight = SpriteCache.get(game.app, "src/main/resources/playerRight.png");
+        this.playerClosed = SpriteCache.get(game.app, "src/main/resources/playerClosed.png");
+        // The life sprite is a resized copy so the shared right facing sprite keeps its size
+        this.playerLife = SpriteCache.getResized(game.app, "src/main/resources/playerRight.png", 30, 30);
     }
 
-    /** Checks for whether the waka is currently colliding with a ghost
+    /** Checks for whether the waka is currently colliding with a ghost.
+    Only the entities in the bucket of the waka's tile are looked at, however many ghosts the map has.
     @return Returns true if the waka has collided with a ghost, otherwise false
-    @param app Instance of the app
     */
-    public boolean checkGhostCollision(App app) {
-        // Iterate through the list of ghosts
-        for (Ghost ghost : app.game.ghosts) {
-            // Checks that the ghost is alive and is currently in the same cell as waka
-            if (ghost.isAlive() && this.x / 16 == ghost.getX() / 16 && this.y / 16 == ghost.getY() / 16) {
+    public boolean checkGhostCollision() {
+        int col = this.x / 16;
+        int row = this.y / 16;
+        // Iterate through the entities sharing the waka's tile bucket
+        Entity entity = this.game.spatialHash.getFirst(col, row);
+        while (entity != null) {
+            Entity next = this.game.spatialHash.getNext(entity);
+            // Checks that the entity is a living ghost currently in the same cell as waka
+            if (entity instanceof Ghost && entity.isAlive() && col == entity.getX() / 16 && row == entity.getY() / 16) {
                 // Eats the ghost if it is in a frightened state
-                if (app.game.frightened) {
-                    ghost.setAlive(false);
+                if (this.game.modes.getSnapshot().frightened) {
+                    entity.setAlive(false);
                 } else {
                     // Waka dies and the positions are reset
-                    app.game.lives -= 1;
-                    for (Ghost g : app.game.ghosts) {
+                    this.game.lives -= 1;
+                    for (Ghost g : this.game.ghosts) {
                         g.reset();
                         g.setAlive(true);
                     }
@@ -77,44 +81,63 @@ public class Waka extends Entity {
                     return true;
                 }
             }
+            entity = next;
         }
         return false;
     }
 
     /** Checks for whether waka has collided with a fruit, superfruit or soda can
     @return Whether the waka has collided with a power up
-    @param app Instance of the app
     */
-    public boolean checkPowerUpCollision(App app) {
-        // Gets the current game object from the game matrix
-        ArrayList<GameObject> row = app.game.gameGrid.get(this.y/16);
-        GameObject cell = row.get(this.x/16);
+    public boolean checkPowerUpCollision() {
+        GameEvents.PowerUpCollision event = new GameEvents.PowerUpCollision();
+        event.begin();
+        // Eats whatever is on the current tile, the listeners update the board, maze layer and fruit count
+        char cellID = this.game.consumables.consume(this.x / 16, this.y / 16);
+        boolean eaten = cellID != Board.EMPTY;
         // Check for whether the cell is a power up
-        if (!(cell.isFruit() || cell.isSuperFruit() || cell.isSodaCan())) {
-            return false;
-        } else {
-            if (cell.isFruit()) {
-                // Decrement the number of fruits
-                app.game.fruits -= 1;
-            } else if (cell.isSuperFruit()) {
-                // Set the ghosts to frightened and begin a timer
-                app.game.frightened = true;
-                app.game.frightenedTime = app.frameCount;
-            } else if (cell.isSodaCan()) {
-                // Set the ghosts to frightened and begin a timer
-                // Set the ghosts to experience the soda can effect, turning them invisible
-                app.game.frightened = true;
-                app.game.frightenedTime = app.frameCount;
-                app.game.sodaCanEffect = true;
-            }
-            // Replace the cell with an empty sprite
-            PImage emptyImage = app.loadImage("src/main/resources/empty.png");
-            Cell emptyCell = new Cell(this.y/16, this.x/16, '0', emptyImage);
-            row.set(this.x/16, emptyCell);
-            return true;
+        if (cellID == Board.SUPER_FRUIT) {
+            // Set the ghosts to frightened and begin a timer
+            this.game.modes.frighten(this.game.tick, false);
+        } else if (cellID == Board.SODA_CAN) {
+            // Set the ghosts to frightened and begin a timer
+            // Set the ghosts to experience the soda can effect, turning them invisible
+            this.game.modes.frighten(this.game.tick, true);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.cellID = cellID;
+            event.eaten = eaten;
+            event.mode = this.game.getModeName();
+            event.fruits = this.game.fruits;
+            event.commit();
+        }
+        return eaten;
+    }
+
+    /** Steers the waka with the given key press
+    @param keyCode The key code of the key pressed
+    */
+    public void handleInput(int keyCode) {
+        if (checkCollision(keyCode)) {
+            // If the move causes collision, queue it as the next move instead
+            this.nextMove = keyCode;
+        } else if (keyCode >= 37 && keyCode <= 40) {
+            // If the move doesn't cause collision, store is as the last lastMove
+            // Reset the next move
+            this.lastMove = keyCode;
+            this.nextMove = 0;
         }
     }
 
+    /** Restores the waka to the state it started the game in
+    */
+    public void restart() {
+        super.restart();
+        this.lastMove = 37;
+        this.sprite = this.playerClosed;
+    }
+
     /** Updates the sprite given the current direction
     @param wakaDirection The waka's current direction
     */
@@ -135,17 +158,21 @@ public class Waka extends Entity {
     }
 
     /** Ticks the waka, moving and checking for collision
-    @param app Instance of the app
     */
-    public void tick(App app) {
-        if (move(this.lastMove, app)) {
+    public void tick() {
+        if (move(this.lastMove)) {
             updateSprite(this.lastMove);
         }
+        Metrics metrics = this.game.metrics;
+        long start = metrics == null ? 0 : metrics.start();
         // Eats the fruit if present
         // Activates the superfruit/sodaCan if eaten
-        checkPowerUpCollision(app);
+        checkPowerUpCollision();
         // Checks for whether waka is colliding with a ghost
-        checkGhostCollision(app);
+        checkGhostCollision();
+        if (metrics != null) {
+            metrics.record(Metrics.COLLISION, start);
+        }
     }
 
     /** Draws the number of lives to the screen
@@ -154,7 +181,7 @@ public class Waka extends Entity {
     public void drawLives(App app) {
         int x = 20;
         int y = 540;
-        for (int i = 0; i < app.game.lives; i++) {
+        for (int i = 0; i < this.game.lives; i++) {
             app.image(this.playerLife, x, y);
             x += 40;
         }
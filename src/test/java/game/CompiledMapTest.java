@@ -0,0 +1,131 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompiledMapTest {
+
+    /** Stores the file each test writes its compiled map to
+    */
+    private Path file;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        this.file = Files.createTempFile("waka", CompiledMap.EXTENSION);
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    /** Compiles the default map and writes it to the test's file
+    @return The map as it was compiled
+    @param withNavigation Whether to compile in the navigation fields
+    */
+    private CompiledMap compileAndWrite(boolean withNavigation) throws IOException {
+        CompiledMap map = CompiledMap.compile(new MapLoader().load("map.txt"), withNavigation);
+        map.write(this.file.toString());
+        return map;
+    }
+
+    /** Reads the test's file back from a buffer after changing one of its bytes
+    @return The compiled map
+    @param offset The offset of the byte to change
+    */
+    private CompiledMap readWithByteFlipped(int offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(this.file);
+        bytes[offset] ^= 1;
+        return CompiledMap.read(this.file.toString(), ByteBuffer.wrap(bytes));
+    }
+
+    @Test
+    public void writtenMapReadsBackUnchanged() throws IOException {
+        CompiledMap written = compileAndWrite(true);
+        CompiledMap read = CompiledMap.read(this.file.toString());
+
+        assertEquals(written.board.getWidth(), read.board.getWidth());
+        assertEquals(written.board.getHeight(), read.board.getHeight());
+        assertArrayEquals(written.board.tiles, read.board.tiles);
+        assertArrayEquals(written.board.walls, read.board.walls);
+        assertArrayEquals(written.spawnIDs, read.spawnIDs);
+        assertArrayEquals(written.spawnCols, read.spawnCols);
+        assertArrayEquals(written.spawnRows, read.spawnRows);
+        assertEquals(written.fruits, read.fruits);
+
+        assertArrayEquals(written.navigation.pinnedTiles, read.navigation.pinnedTiles);
+        for (int i = 0; i < written.navigation.pinnedFields.length; i++) {
+            assertArrayEquals(written.navigation.pinnedFields[i], read.navigation.pinnedFields[i]);
+        }
+    }
+
+    @Test
+    public void mapWithoutNavigationReadsBackWithoutIt() throws IOException {
+        compileAndWrite(false);
+        assertNull(CompiledMap.read(this.file.toString()).navigation);
+    }
+
+    @Test
+    public void compiledMapPlaysLikeTheTextMap() throws IOException {
+        compileAndWrite(true);
+        GameConfig config = new GameConfig("map.txt", 3, 1, 7, new int[] {7, 20, 7, 20, 5, 20, 5, 1000});
+        Game text = BatchRunner.createGame(new BatchJob(config, 99L, 0), Game.readBoard("map.txt"));
+        Game compiled = BatchRunner.createGame(new BatchJob(config, 99L, 0), Game.readBoard(this.file.toString()));
+        Simulation textSimulation = new Simulation(text);
+        Simulation compiledSimulation = new Simulation(compiled);
+        for (int i = 0; i < 1000; i++) {
+            textSimulation.step();
+            compiledSimulation.step();
+            assertEquals(text.stateHash(), compiled.stateHash(), "State differs after tick " + (i + 1));
+        }
+    }
+
+    @Test
+    public void corruptedPayloadIsRejected() throws IOException {
+        compileAndWrite(true);
+        assertThrows(MapFormatException.class, () -> readWithByteFlipped(CompiledMap.HEADER_SIZE + 40));
+    }
+
+    @Test
+    public void corruptedHeaderIsRejected() throws IOException {
+        compileAndWrite(true);
+        // The fruit count, which no size check would catch
+        MapFormatException rejected = assertThrows(MapFormatException.class, () -> readWithByteFlipped(19));
+        assertTrue(rejected.getMessage().contains("checksum"));
+    }
+
+    @Test
+    public void fruitCountMustMatchTheTiles() throws IOException {
+        CompiledMap map = CompiledMap.compile(new MapLoader().load("map.txt"), false);
+        new CompiledMap(map.board, map.spawnIDs, map.spawnCols, map.spawnRows, map.fruits + 1, null).write(this.file.toString());
+        MapFormatException rejected = assertThrows(MapFormatException.class, () -> CompiledMap.read(this.file.toString()));
+        assertTrue(rejected.getMessage().contains("fruit"));
+    }
+
+    @Test
+    public void gameCountsFruitFromTheTiles() throws IOException {
+        CompiledMap map = CompiledMap.compile(new MapLoader().load("map.txt"), false);
+        Game game = new Game(null);
+        game.loadMap(new CompiledMap(map.board, map.spawnIDs, map.spawnCols, map.spawnRows, 0, null));
+        assertEquals(map.fruits, game.fruits);
+        assertFalse(game.isWon());
+        game.fruits = 0;
+        game.restart();
+        assertEquals(map.fruits, game.fruits);
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        Files.write(this.file, Files.readAllBytes(Paths.get("map.txt")));
+        assertThrows(MapFormatException.class, () -> CompiledMap.read(this.file.toString()));
+    }
+}
@@ -0,0 +1,134 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class NavigationTest {
+
+    /** Builds a board of empty tiles surrounded by walls
+    @return The board
+    @param width The number of columns
+    @param height The number of rows
+    */
+    private static Board walledBoard(int width, int height) {
+        Board board = new Board(width, height);
+        for (int col = 0; col < width; col++) {
+            board.setCellID(col, 0, '1');
+            board.setCellID(col, height - 1, '1');
+        }
+        for (int row = 0; row < height; row++) {
+            board.setCellID(0, row, '1');
+            board.setCellID(width - 1, row, '1');
+        }
+        return board;
+    }
+
+    @Test
+    public void wallTargetsResolveToTheClosestWalkableTile() {
+        Navigation navigation = new Navigation(walledBoard(8, 6));
+        int tile = Navigation.TILE_SIZE;
+        // A walkable tile is its own target
+        assertEquals(2 * 8 + 3, navigation.getTargetTile(3 * tile, 2 * tile));
+        // The top left corner is as close to (1, 0) as to (0, 1), the first in row major order wins
+        assertEquals(1 * 8 + 1, navigation.getTargetTile(0, 0));
+        // Coordinates off the map are clamped to its edge first
+        assertEquals(4 * 8 + 6, navigation.getTargetTile(1000, 1000));
+        assertEquals(1 * 8 + 3, navigation.getTargetTile(3 * tile, -1000));
+    }
+
+    @Test
+    public void mapWithoutWalkableTilesHasNoTargets() {
+        Navigation navigation = new Navigation(walledBoard(2, 2));
+        assertEquals(-1, navigation.getTargetTile(0, 0));
+    }
+
+    @Test
+    public void fieldsCountTheWalkAroundWalls() {
+        Board board = walledBoard(7, 5);
+        // A wall across the middle column with a gap at the bottom
+        board.setCellID(3, 1, '1');
+        board.setCellID(3, 2, '1');
+        Navigation navigation = new Navigation(board);
+        int target = navigation.getTargetTile(5 * Navigation.TILE_SIZE, Navigation.TILE_SIZE);
+        short[] field = navigation.getField(target);
+        assertEquals(0, field[target]);
+        // From (1, 1) down, across the gap at (3, 3) and back up to (5, 1)
+        assertEquals(8, field[1 * 7 + 1]);
+        assertEquals(Navigation.UNREACHABLE, field[1 * 7 + 3]);
+    }
+
+    @Test
+    public void pinnedFieldsAreBounded() {
+        Navigation navigation = new Navigation(walledBoard(40, 40));
+        for (int i = 1; i < 39; i++) {
+            navigation.pin(i * Navigation.TILE_SIZE, i * Navigation.TILE_SIZE);
+        }
+        assertEquals(Navigation.MAX_PINNED_FIELDS, navigation.pinnedTiles.length);
+        // Targets past the limit are still found, through the cache
+        int target = navigation.getTargetTile(30 * Navigation.TILE_SIZE, 30 * Navigation.TILE_SIZE);
+        assertEquals(0, navigation.getField(target)[target]);
+    }
+
+    @Test
+    public void cacheIsBoundedOnLargeMaps() {
+        Navigation navigation = new Navigation(walledBoard(1024, 1024));
+        assertEquals(Navigation.MAX_CACHED_DISTANCES / (1024 * 1024), navigation.cachedFields.length());
+    }
+
+    @Test
+    public void largeMapLoadsWithoutNavigation() throws IOException {
+        int size = 4096;
+        assertFalse(Navigation.isSupported(size, size));
+        assertThrows(IllegalArgumentException.class, () -> new Navigation(walledBoard(size, size)));
+
+        Path map = Files.createTempFile("waka", ".txt");
+        try {
+            char[] line = new char[size];
+            try (BufferedWriter out = Files.newBufferedWriter(map)) {
+                for (int row = 0; row < size; row++) {
+                    Arrays.fill(line, row == 0 || row == size - 1 ? '1' : '0');
+                    line[0] = '2';
+                    line[size - 1] = '2';
+                    if (row == 1) {
+                        line[1] = 'p';
+                    } else if (row == 10) {
+                        // Entities only move inside the original playfield, so the ghost starts there
+                        line[10] = 'a';
+                    } else if (row == size / 2) {
+                        // Fruit far from the waka, so the game is not won straight away
+                        line[size / 2] = '7';
+                    }
+                    out.write(line);
+                    out.newLine();
+                }
+            }
+            Game game = new Game(null);
+            game.filename = map.toString();
+            game.lives = 3;
+            game.speed = 1;
+            game.frightenedLength = 7;
+            game.modeLengths = new int[] {7, 20, 7, 20, 5, 20, 5, 1000};
+            assertNotNull(game.loadGame());
+            assertNull(game.navigation);
+            assertEquals(1, game.ghosts.size());
+
+            // The ghost still finds its way, on straight line distances
+            int startX = game.ghosts.get(0).getX();
+            int startY = game.ghosts.get(0).getY();
+            Simulation simulation = new Simulation(game);
+            for (int i = 0; i < 60; i++) {
+                assertTrue(simulation.step());
+            }
+            assertTrue(game.ghosts.get(0).getX() != startX || game.ghosts.get(0).getY() != startY);
+        } finally {
+            Files.delete(map);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ReplayTest {
+
+    /** The number of ticks the recorded game is played for
+    */
+    private static final int TICKS = 2000;
+
+    /** Plays a game with random key presses, recording it
+    @return The recording
+    @param presses Stores the number of key presses recorded
+    */
+    private static byte[] record(int[] presses) throws IOException {
+        GameConfig config = new GameConfig("map.txt", 3, 1, 7, new int[] {7, 20, 7, 20, 5, 20, 5, 1000});
+        BatchJob setup = new BatchJob(config, 1234L, TICKS);
+        Game game = BatchRunner.createGame(setup, Game.readBoard("map.txt"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        game.recorder = new InputRecorder(bytes, setup);
+        Simulation simulation = new Simulation(game);
+        Random keys = new Random(7);
+        while (game.tick < TICKS) {
+            if (keys.nextInt(15) == 0) {
+                game.handleInput(37 + keys.nextInt(4));
+                presses[0] += 1;
+            }
+            if (!simulation.step()) {
+                break;
+            }
+        }
+        game.recorder.finish(game);
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void recordedGameReplaysToTheSameState() throws IOException {
+        int[] presses = new int[1];
+        Replay replay = new Replay(new ByteArrayInputStream(record(presses)));
+        assertEquals(presses[0], replay.getInputCount());
+        assertEquals(1234L, replay.setup.seed);
+        assertTrue(replay.finalTick > 0);
+        assertTrue(replay.verify());
+    }
+
+    @Test
+    public void alteredRecordingFailsToVerify() throws IOException {
+        byte[] recording = record(new int[1]);
+        // The state hash is the last thing written
+        recording[recording.length - 1] ^= 1;
+        assertFalse(new Replay(new ByteArrayInputStream(recording)).verify());
+    }
+
+    @Test
+    public void cutOffRecordingReplaysUpToItsLastKeyPress() throws IOException {
+        int[] presses = new int[1];
+        byte[] recording = record(presses);
+        Replay whole = new Replay(new ByteArrayInputStream(recording));
+        assertTrue(whole.complete);
+        // Cut off part way through the end marker's state hash
+        Replay cut = new Replay(new ByteArrayInputStream(Arrays.copyOf(recording, recording.length - 3)));
+        assertFalse(cut.complete);
+        assertEquals(presses[0], cut.getInputCount());
+        assertTrue(cut.finalTick <= whole.finalTick);
+        assertFalse(cut.verify());
+        assertEquals(cut.finalTick, cut.run().tick);
+        // Cut off at every length after the header, none of which may fail to read
+        int previous = 0;
+        for (int length = recording.length - 1; length > recording.length - 2 * presses[0]; length--) {
+            Replay shorter = new Replay(new ByteArrayInputStream(Arrays.copyOf(recording, length)));
+            assertTrue(shorter.getInputCount() <= presses[0]);
+            previous = shorter.getInputCount();
+        }
+        assertTrue(previous < presses[0]);
+    }
+
+    @Test
+    public void otherFilesAreRejected() {
+        byte[] notRecording = {'W', 'M', 'A', 'P', 1, 0, 0, 0};
+        assertThrows(IOException.class, () -> new Replay(new ByteArrayInputStream(notRecording)));
+    }
+}
@@ -0,0 +1,140 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+public class SimulationTest {
+
+    /** The number of ticks each game is played for
+    */
+    private static final int TICKS = 3000;
+
+    /** Loads the default map headless, with the settings of the default config
+    @return The game, ready to be stepped
+    */
+    private static Game headlessGame() {
+        Game game = new Game(null);
+        game.filename = "map.txt";
+        game.lives = 3;
+        game.speed = 1;
+        game.frightenedLength = 7;
+        game.modeLengths = new int[] {7, 20, 7, 20, 5, 20, 5, 1000};
+        assertNotNull(game.loadGame());
+        return game;
+    }
+
+    /** Loads the default map with a ghost on every third fruit, cycling through the ghost types
+    @return The game, ready to be stepped
+    */
+    private static Game stressGame() throws IOException {
+        Board board = Game.readBoard("map.txt");
+        char[] ghostIDs = {'a', 'c', 'i', 'w'};
+        int ghosts = 0;
+        for (int row = 0; row < board.getHeight(); row++) {
+            for (int col = 0; col < board.getWidth(); col++) {
+                if (board.getCellID(col, row) == Board.FRUIT && (col + row) % 3 == 0) {
+                    board.setCellID(col, row, ghostIDs[ghosts % ghostIDs.length]);
+                    ghosts += 1;
+                }
+            }
+        }
+        Game game = new Game(null);
+        game.lives = 1000;
+        game.speed = 1;
+        game.frightenedLength = 7;
+        game.modeLengths = new int[] {7, 20, 7, 20, 5, 20, 5, 1000};
+        game.setSeed(42);
+        game.loadMap(CompiledMap.compile(board, false));
+        return game;
+    }
+
+    /** Plays the stress game with the same key presses every time, hashing its state after every tick
+    @return The state hash after each tick
+    @param pool The pool to plan the ghosts on, or null to plan them on the test's thread
+    */
+    private static long[] play(ForkJoinPool pool) throws IOException {
+        Game game = stressGame();
+        Simulation simulation = new Simulation(game);
+        simulation.setParallelism(pool, 1);
+        Random keys = new Random(1);
+        long[] hashes = new long[TICKS];
+        for (int i = 0; i < TICKS; i++) {
+            if (i % 20 == 0) {
+                game.inputQueue.offer(37 + keys.nextInt(4), 0);
+            }
+            if (!simulation.step()) {
+                game.restart();
+            }
+            hashes[i] = game.stateHash();
+        }
+        return hashes;
+    }
+
+    @Test
+    public void stepAdvancesOneTick() {
+        Simulation simulation = new Simulation(headlessGame());
+        assertTrue(simulation.step());
+        assertTrue(simulation.step());
+        assertEquals(2, simulation.getTick());
+    }
+
+    @Test
+    public void runStopsAtTheGivenNumberOfTicks() {
+        Simulation simulation = new Simulation(headlessGame());
+        assertEquals(100, simulation.run(100));
+        assertEquals(100, simulation.getTick());
+    }
+
+    @Test
+    public void advanceCarriesLeftoverTimeToTheNextCall() {
+        Simulation simulation = new Simulation(headlessGame());
+        assertEquals(2, simulation.advance(Simulation.NANOS_PER_TICK * 5 / 2));
+        assertEquals(0, simulation.advance(Simulation.NANOS_PER_TICK / 4));
+        assertEquals(1, simulation.advance(Simulation.NANOS_PER_TICK / 2));
+        assertEquals(0, simulation.advance(-Simulation.NANOS_PER_TICK));
+        assertEquals(3, simulation.getTick());
+    }
+
+    @Test
+    public void advanceCatchesUpOnALimitedNumberOfTicks() {
+        Simulation simulation = new Simulation(headlessGame());
+        assertEquals(Simulation.MAX_CATCH_UP_TICKS, simulation.advance(1000000000L));
+        // The rest of the stall is dropped rather than carried over
+        assertEquals(0, simulation.advance(0));
+    }
+
+    @Test
+    public void finishedGameNoLongerAdvances() {
+        Game game = headlessGame();
+        Simulation simulation = new Simulation(game);
+        game.resetGame = true;
+        assertFalse(simulation.step());
+        assertEquals(0, simulation.advance(Simulation.NANOS_PER_TICK * 3));
+        assertEquals(0, simulation.getTick());
+    }
+
+    @Test
+    public void stressBoardHasManyGhosts() throws IOException {
+        assertTrue(stressGame().ghosts.size() >= 50);
+    }
+
+    @Test
+    public void parallelPlanningMatchesSequentialEveryTick() throws Exception {
+        long[] sequential = play(null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        long[] parallel;
+        try {
+            parallel = play(pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < TICKS; i++) {
+            assertEquals(sequential[i], parallel[i], "State differs after tick " + (i + 1));
+        }
+    }
+}
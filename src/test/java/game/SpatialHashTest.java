@@ -0,0 +1,132 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SpatialHashTest {
+
+    /** Builds a game holding an empty spatial hash
+    @return The game
+    @param width The number of columns
+    @param height The number of rows
+    */
+    private static Game hashedGame(int width, int height) {
+        Game game = new Game(null);
+        game.speed = 1;
+        game.spatialHash = new SpatialHash(width, height);
+        return game;
+    }
+
+    /** Adds an entity on the given tile to the game's spatial hash
+    @return The entity
+    @param game The game
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    private static Entity addEntity(Game game, int col, int row) {
+        Entity entity = new Entity(col * Board.TILE_SIZE, row * Board.TILE_SIZE, 'p', null, game) {};
+        game.spatialHash.add(entity);
+        return entity;
+    }
+
+    /** Collects the entities in the bucket of a tile
+    @return The entities
+    @param hash The spatial hash
+    @param col The column of the tile
+    @param row The row of the tile
+    */
+    private static List<Entity> bucket(SpatialHash hash, int col, int row) {
+        List<Entity> entities = new ArrayList<Entity>();
+        for (Entity entity = hash.getFirst(col, row); entity != null; entity = hash.getNext(entity)) {
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    @Test
+    public void entitiesAreFoundOnTheirOwnTile() {
+        Game game = hashedGame(28, 36);
+        Entity first = addEntity(game, 3, 4);
+        Entity second = addEntity(game, 3, 4);
+        Entity other = addEntity(game, 4, 4);
+
+        List<Entity> tile = bucket(game.spatialHash, 3, 4);
+        assertEquals(2, tile.size());
+        assertTrue(tile.contains(first) && tile.contains(second));
+        assertEquals(1, bucket(game.spatialHash, 4, 4).size());
+        assertNull(game.spatialHash.getFirst(5, 4));
+
+        // Moving within the tile keeps the bucket, crossing into the next one changes it
+        other.setX(other.getX() + Board.TILE_SIZE - 1);
+        assertEquals(1, bucket(game.spatialHash, 4, 4).size());
+        first.setX(first.getX() + Board.TILE_SIZE);
+        assertEquals(2, bucket(game.spatialHash, 4, 4).size());
+        assertEquals(1, bucket(game.spatialHash, 3, 4).size());
+        second.setY(second.getY() - Board.TILE_SIZE);
+        assertNull(game.spatialHash.getFirst(3, 4));
+        assertEquals(3, game.spatialHash.size());
+    }
+
+    @Test
+    public void neighboursCoverTheThreeByThreeTiles() {
+        Game game = hashedGame(28, 36);
+        addEntity(game, 5, 5);
+        addEntity(game, 4, 4);
+        addEntity(game, 6, 6);
+        addEntity(game, 6, 4);
+        // Two tiles away, so outside the neighbourhood
+        addEntity(game, 7, 5);
+        addEntity(game, 5, 3);
+
+        List<Entity> out = new ArrayList<Entity>();
+        assertEquals(4, game.spatialHash.getNeighbours(5, 5, out));
+        assertEquals(4, out.size());
+        for (Entity entity : out) {
+            assertTrue(Math.abs(entity.getX() / Board.TILE_SIZE - 5) <= 1);
+            assertTrue(Math.abs(entity.getY() / Board.TILE_SIZE - 5) <= 1);
+        }
+
+        // The neighbourhood of a corner tile stops at the edge of the board
+        addEntity(game, 0, 0);
+        addEntity(game, 1, 1);
+        out.clear();
+        assertEquals(2, game.spatialHash.getNeighbours(0, 0, out));
+    }
+
+    @Test
+    public void bucketsMatchABruteForceSearchOnAHugeBoard() {
+        // Far more tiles than could be given one bucket each
+        int size = 100000;
+        Game game = hashedGame(size, size);
+        Random random = new Random(42);
+        Entity[] entities = new Entity[500];
+        for (int i = 0; i < entities.length; i++) {
+            // Crowded into a small area, so buckets share tiles and probe runs collide
+            entities[i] = addEntity(game, random.nextInt(40), random.nextInt(40));
+        }
+        for (int step = 0; step < 20000; step++) {
+            Entity entity = entities[random.nextInt(entities.length)];
+            if (random.nextBoolean()) {
+                entity.setX(random.nextInt(40) * Board.TILE_SIZE + random.nextInt(Board.TILE_SIZE));
+            } else {
+                entity.setY(random.nextInt(40) * Board.TILE_SIZE + random.nextInt(Board.TILE_SIZE));
+            }
+            int col = random.nextInt(40);
+            int row = random.nextInt(40);
+            List<Entity> expected = new ArrayList<Entity>();
+            for (Entity other : entities) {
+                if (other.getX() / Board.TILE_SIZE == col && other.getY() / Board.TILE_SIZE == row) {
+                    expected.add(other);
+                }
+            }
+            List<Entity> found = bucket(game.spatialHash, col, row);
+            assertEquals(expected.size(), found.size());
+            assertTrue(found.containsAll(expected));
+        }
+    }
+}
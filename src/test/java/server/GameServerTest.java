@@ -0,0 +1,138 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import game.*;
+
+public class GameServerTest {
+
+    /** Stores the server under test, listening on loopback
+    */
+    private GameServer server;
+    /** Stores the thread running the server
+    */
+    private Thread serverThread;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        GameConfig config = new GameConfig("map.txt", 1, 1, 3, new int[] {7, 20, 7, 20, 5, 20, 5, 1000});
+        this.server = new GameServer(config, new InetSocketAddress("127.0.0.1", 0));
+        this.serverThread = new Thread(this.server, "game-server");
+        this.serverThread.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws InterruptedException {
+        this.server.close();
+        this.serverThread.join(5000);
+    }
+
+    /** Sends raw bytes to the server and waits for it to close the connection
+    @return True if the server closed the connection
+    @param bytes The bytes to send
+    */
+    private boolean sendAndAwaitClose(byte[] bytes) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", this.server.getPort())) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(bytes);
+            out.flush();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            // Skips whatever the server sent before dropping the client
+            while (in.read() != -1) {
+            }
+            return true;
+        }
+    }
+
+    /** Joins a new session and checks the server is still ticking it
+    @return The client, which has received the game
+    */
+    private GameClient joinAndAwaitTicks() throws IOException, InterruptedException {
+        GameClient client = new GameClient(null);
+        client.connect("127.0.0.1", this.server.getPort(), Protocol.NEW_SESSION);
+        int firstTick = client.awaitGame(5000).tick;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.update().tick <= firstTick) {
+            assertTrue(System.currentTimeMillis() < deadline, "server stopped ticking");
+            Thread.sleep(5);
+        }
+        return client;
+    }
+
+    @Test
+    public void shortJoinFrameDropsOnlyThatClient() throws Exception {
+        GameClient player = joinAndAwaitTicks();
+        // A JOIN frame with its version but without the session ID
+        assertTrue(sendAndAwaitClose(new byte[] {0, 0, 0, 2, Protocol.JOIN, Protocol.VERSION}));
+        // A JOIN frame with no payload at all
+        assertTrue(sendAndAwaitClose(new byte[] {0, 0, 0, 1, Protocol.JOIN}));
+        assertTrue(this.serverThread.isAlive());
+        assertTrue(player.isConnected());
+        joinAndAwaitTicks().close();
+        player.close();
+    }
+
+    @Test
+    public void shortKeyFrameDropsOnlyThatClient() throws Exception {
+        GameClient player = joinAndAwaitTicks();
+        byte[] join = new byte[4 + Protocol.JOIN_LENGTH];
+        Protocol.join(player.getSessionID()).get(join);
+        byte[] frames = new byte[join.length + 5];
+        System.arraycopy(join, 0, frames, 0, join.length);
+        // A KEY frame without its key code, sent by a spectator of the same session
+        frames[join.length + 3] = 1;
+        frames[join.length + 4] = Protocol.KEY;
+        assertTrue(sendAndAwaitClose(frames));
+        assertTrue(this.serverThread.isAlive());
+        assertTrue(player.isConnected());
+        joinAndAwaitTicks().close();
+        player.close();
+    }
+
+    @Test
+    public void invalidFrameLengthDropsOnlyThatClient() throws Exception {
+        GameClient player = joinAndAwaitTicks();
+        assertTrue(sendAndAwaitClose(new byte[] {0, 0, 0, 0}));
+        assertTrue(sendAndAwaitClose(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}));
+        assertTrue(this.serverThread.isAlive());
+        assertTrue(player.isConnected());
+        player.close();
+    }
+
+    @Test
+    public void unknownSessionIsRefusedWithReason() throws Exception {
+        GameClient client = new GameClient(null);
+        client.connect("127.0.0.1", this.server.getPort(), 12345);
+        IOException refused = assertThrows(IOException.class, () -> client.awaitGame(5000));
+        assertTrue(refused.getMessage().contains("No session 12345"), refused.getMessage());
+        client.close();
+    }
+
+    @Test
+    public void unsupportedVersionIsRefusedWithReason() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", this.server.getPort())) {
+            socket.setSoTimeout(5000);
+            byte[] join = new byte[4 + Protocol.JOIN_LENGTH];
+            Protocol.join(Protocol.NEW_SESSION).get(join);
+            join[5] = (byte) (Protocol.VERSION + 1);
+            socket.getOutputStream().write(join);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            in.readInt();
+            assertEquals(Protocol.ERROR, in.readByte());
+            assertTrue(in.readUTF().contains("version"));
+            assertEquals(-1, in.read());
+        }
+        assertEquals(0, this.server.getSessionCount());
+    }
+}